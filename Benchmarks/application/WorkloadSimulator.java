@@ -0,0 +1,293 @@
+package application;
+
+import databasePart1.AnswerRow;
+import databasePart1.BenchmarkDataset;
+import databasePart1.DatabaseHelper;
+import databasePart1.LatencyHistogram;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Headless load test: many simulated students, each on its own virtual thread, log in, post,
+ * reply, search, browse and accept answers against one DatabaseHelper, the way the pages do.
+ *
+ * The run goes through stages, e.g. --stages=100x30s,500x30s,2000x60s holds 100 students for
+ * 30 seconds, then 500, then 2000. Students are added or removed gradually over --ramp at the
+ * start of each stage. Every stage records a latency histogram per operation, and the report
+ * at the end shows throughput against p50, p99 and p999 so the point where the database
+ * saturates is easy to spot.
+ *
+ * Options (all optional):
+ *   --users=2000 --questions=10000     size of the generated dataset
+ *   --stages=50x20s,200x20s,1000x30s   concurrent students and how long each stage lasts
+ *   --ramp=5s                          time to reach a stage's student count
+ *   --think=200ms                      mean pause between one student's actions
+ *   --mix=login:10,post:5,reply:10,search:35,browse:35,accept:5
+ */
+public class WorkloadSimulator {
+
+    enum Op { LOGIN, POST, REPLY, SEARCH, BROWSE, ACCEPT }
+
+    private final DatabaseHelper db;
+    private final BenchmarkDataset dataset;
+    private final Map<Op, Integer> mix;
+    private final int mixTotal;
+    private final long thinkMillis;
+
+    // the stage that is being recorded right now, students record into whatever is current
+    private volatile StageStats current;
+
+    // everything measured during one stage
+    private static final class StageStats {
+        final int students;
+        final Map<Op, LatencyHistogram> latency = new EnumMap<>(Op.class);
+        final Map<Op, LongAdder> errors = new EnumMap<>(Op.class);
+        long startNanos;
+        long endNanos;
+
+        StageStats(int students) {
+            this.students = students;
+            for (Op op : Op.values()) {
+                latency.put(op, new LatencyHistogram());
+                errors.put(op, new LongAdder());
+            }
+        }
+
+        LatencyHistogram all() {
+            LatencyHistogram all = new LatencyHistogram();
+            for (LatencyHistogram h : latency.values()) all.addAll(h);
+            return all;
+        }
+
+        long errorCount() {
+            long n = 0;
+            for (LongAdder e : errors.values()) n += e.sum();
+            return n;
+        }
+
+        double seconds() {
+            return (endNanos - startNanos) / 1e9;
+        }
+    }
+
+    private record Stage(int students, long millis) { }
+
+    // one simulated student and the switch that stops it
+    private record Student(Thread thread, AtomicBoolean running) { }
+
+    WorkloadSimulator(BenchmarkDataset dataset, Map<Op, Integer> mix, long thinkMillis) {
+        this.dataset = dataset;
+        this.db = dataset.db();
+        this.mix = mix;
+        this.thinkMillis = thinkMillis;
+        int total = 0;
+        for (int weight : mix.values()) total += weight;
+        this.mixTotal = total;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int users = 2_000;
+        int questions = 10_000;
+        String stages = "50x20s,200x20s,1000x30s,3000x30s";
+        long rampMillis = 5_000;
+        long thinkMillis = 200;
+        String mix = "login:10,post:5,reply:10,search:35,browse:35,accept:5";
+
+        for (String arg : args) {
+            String[] kv = arg.replaceFirst("^--", "").split("=", 2);
+            if (kv.length != 2) throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            switch (kv[0]) {
+                case "users" -> users = Integer.parseInt(kv[1]);
+                case "questions" -> questions = Integer.parseInt(kv[1]);
+                case "stages" -> stages = kv[1];
+                case "ramp" -> rampMillis = parseMillis(kv[1]);
+                case "think" -> thinkMillis = parseMillis(kv[1]);
+                case "mix" -> mix = kv[1];
+                default -> throw new IllegalArgumentException("Unknown option " + kv[0]);
+            }
+        }
+
+        System.out.println("Generating " + users + " users and " + questions + " questions...");
+        try (BenchmarkDataset dataset = BenchmarkDataset.create(users, questions, 2, 42)) {
+            // the first search builds the index, keep that out of the first stage
+            dataset.db().searchQuestions("java");
+            WorkloadSimulator sim = new WorkloadSimulator(dataset, parseMix(mix), thinkMillis);
+            List<StageStats> results = sim.run(parseStages(stages), rampMillis);
+            printReport(results);
+        }
+    }
+
+    List<StageStats> run(List<Stage> stages, long rampMillis) throws InterruptedException {
+        List<Student> students = new ArrayList<>();
+        List<StageStats> results = new ArrayList<>();
+        int number = 1;
+        for (Stage stage : stages) {
+            StageStats stats = new StageStats(stage.students());
+            stats.startNanos = System.nanoTime();
+            current = stats;
+            System.out.printf("Stage %d: %d students for %.0f s%n", number++, stage.students(), stage.millis() / 1e3);
+
+            // ramp to the new head count in small steps, never longer than the stage itself
+            long ramp = Math.min(rampMillis, stage.millis());
+            int steps = 20;
+            int from = students.size();
+            for (int step = 1; step <= steps; step++) {
+                int target = from + (stage.students() - from) * step / steps;
+                while (students.size() < target) students.add(startStudent(students.size()));
+                while (students.size() > target) {
+                    students.remove(students.size() - 1).running().set(false);
+                }
+                Thread.sleep(ramp / steps);
+            }
+            Thread.sleep(stage.millis() - ramp);
+
+            stats.endNanos = System.nanoTime();
+            results.add(stats);
+            printStage(stats);
+        }
+        for (Student s : students) s.running().set(false);
+        for (Student s : students) s.thread().join();
+        return results;
+    }
+
+    private Student startStudent(int n) {
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread thread = Thread.ofVirtual().name("student-" + n).start(() -> studentLoop(n, running));
+        return new Student(thread, running);
+    }
+
+    private void studentLoop(int n, AtomicBoolean running) {
+        SplittableRandom random = new SplittableRandom(n * 31L + 7);
+        String username = BenchmarkDataset.username(n % dataset.users());
+        QuestionManager manager = new QuestionManager(db, username);
+
+        while (running.get()) {
+            Op op = pick(random);
+            StageStats stats = current;
+            long start = System.nanoTime();
+            boolean ok;
+            try {
+                ok = perform(op, username, manager, random);
+            } catch (RuntimeException e) {
+                ok = false;
+            }
+            stats.latency.get(op).record(System.nanoTime() - start);
+            if (!ok) stats.errors.get(op).increment();
+
+            try {
+                // exponential think time, like independent users clicking around
+                Thread.sleep((long) (-Math.log(1 - random.nextDouble()) * thinkMillis));
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private Op pick(SplittableRandom random) {
+        int r = random.nextInt(mixTotal);
+        for (Map.Entry<Op, Integer> e : mix.entrySet()) {
+            r -= e.getValue();
+            if (r < 0) return e.getKey();
+        }
+        return Op.SEARCH;
+    }
+
+    // one user action, false when the helper reported a failure
+    private boolean perform(Op op, String username, QuestionManager manager, SplittableRandom random) {
+        switch (op) {
+            case LOGIN:
+                // what UserLoginPage does: check the password, then load the roles
+                if (!db.login(username, BenchmarkDataset.PASSWORD)) return false;
+                return !db.getUserRoles(username).isEmpty();
+            case POST:
+                return db.addQuestion(username, BenchmarkDataset.text(random, 6), BenchmarkDataset.text(random, 40));
+            case REPLY:
+                return db.addAnswer(dataset.randomQid(random), username, BenchmarkDataset.text(random, 25));
+            case SEARCH:
+                manager.search(BenchmarkDataset.randomWord(random) + " " + BenchmarkDataset.randomWord(random));
+                return true;
+            case BROWSE:
+                // what the scrolling question list loads: the top window, then the next one by keyset
+                // (100 rows, LazyQuestionList.PAGE_SIZE, which needs javafx so it is not compiled here)
+                List<Question> top = manager.getQuestionsAt(0, 100);
+                if (!top.isEmpty()) manager.getQuestionsBefore(top.get(top.size() - 1).getId(), 100);
+                return true;
+            case ACCEPT:
+                List<AnswerRow> answers = db.getAnswers(dataset.randomQid(random));
+                return answers.isEmpty() || db.markAnswerAccepted(answers.get(0).aid());
+            default:
+                return true;
+        }
+    }
+
+    private static void printStage(StageStats stats) {
+        System.out.printf("  %-8s %9s %8s %9s %9s %9s %9s%n", "op", "ops/s", "errors", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        for (Op op : Op.values()) {
+            LatencyHistogram h = stats.latency.get(op);
+            if (h.count() == 0) continue;
+            System.out.printf("  %-8s %9.1f %8d %9.2f %9.2f %9.2f %9.2f%n", op.name().toLowerCase(),
+                    h.count() / stats.seconds(), stats.errors.get(op).sum(),
+                    ms(h.percentile(0.50)), ms(h.percentile(0.99)), ms(h.percentile(0.999)), ms(h.max()));
+        }
+    }
+
+    private static void printReport(List<StageStats> results) {
+        System.out.println();
+        System.out.println("Saturation report (all operations)");
+        System.out.printf("%9s %9s %8s %9s %9s %9s%n", "students", "ops/s", "errors", "p50 ms", "p99 ms", "p999 ms");
+        double best = 0;
+        StageStats knee = null;
+        for (StageStats s : results) {
+            LatencyHistogram all = s.all();
+            double throughput = all.count() / s.seconds();
+            System.out.printf("%9d %9.1f %8d %9.2f %9.2f %9.2f%n", s.students, throughput, s.errorCount(),
+                    ms(all.percentile(0.50)), ms(all.percentile(0.99)), ms(all.percentile(0.999)));
+            // more students but under 10% more work done means we are past the knee
+            if (knee == null && best > 0 && throughput < best * 1.10) knee = s;
+            best = Math.max(best, throughput);
+        }
+        if (knee != null) {
+            System.out.println("Throughput stopped scaling at about " + knee.students + " students.");
+        } else {
+            System.out.println("Throughput kept scaling through the last stage, try more students.");
+        }
+    }
+
+    private static double ms(long nanos) {
+        return nanos / 1e6;
+    }
+
+    static long parseMillis(String text) {
+        String t = text.trim().toLowerCase();
+        if (t.endsWith("ms")) return Long.parseLong(t.substring(0, t.length() - 2));
+        if (t.endsWith("m")) return Long.parseLong(t.substring(0, t.length() - 1)) * 60_000;
+        if (t.endsWith("s")) return Long.parseLong(t.substring(0, t.length() - 1)) * 1_000;
+        return Long.parseLong(t);
+    }
+
+    // e.g. 100x30s,500x1m
+    static List<Stage> parseStages(String text) {
+        List<Stage> stages = new ArrayList<>();
+        for (String part : text.split(",")) {
+            String[] p = part.trim().split("x", 2);
+            stages.add(new Stage(Integer.parseInt(p[0]), parseMillis(p[1])));
+        }
+        return stages;
+    }
+
+    // e.g. login:10,search:40
+    static Map<Op, Integer> parseMix(String text) {
+        Map<Op, Integer> mix = new EnumMap<>(Op.class);
+        for (String part : text.split(",")) {
+            String[] p = part.trim().split(":", 2);
+            mix.put(Op.valueOf(p[0].toUpperCase()), Integer.parseInt(p[1]));
+        }
+        return mix;
+    }
+}
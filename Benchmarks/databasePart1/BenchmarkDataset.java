@@ -0,0 +1,147 @@
+package databasePart1;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.Stream;
+
+// generated data for benchmarks: users with roles, questions and answers in a throwaway h2 file.
+// everything comes from a fixed seed, so two runs with the same sizes see the same rows.
+public final class BenchmarkDataset implements AutoCloseable {
+
+    public static final String PASSWORD = "Passw0rd!";
+    private static final String[] ROLES = {"student", "student", "student", "reviewer", "staff", "instructor"};
+
+    // a small vocabulary so searches hit realistic posting lists
+    private static final String[] WORDS = (
+            "java class object method interface inheritance polymorphism exception thread " +
+            "database query index table join transaction commit rollback schema migration " +
+            "javafx scene stage button label layout event listener property binding " +
+            "junit test assert mock coverage refactor design pattern singleton factory " +
+            "array list map set queue stack tree graph hash sort search recursion loop " +
+            "string parse format regex null pointer compile runtime error warning debug " +
+            "homework project deadline team meeting review grade exam lecture lab").split(" ");
+
+    private final Path dir;
+    private final DatabaseHelper db;
+    private final int users;
+    private final int firstQid;
+    private final int lastQid;
+
+    private BenchmarkDataset(Path dir, DatabaseHelper db, int users, int firstQid, int lastQid) {
+        this.dir = dir;
+        this.db = db;
+        this.users = users;
+        this.firstQid = firstQid;
+        this.lastQid = lastQid;
+    }
+
+    // creates a fresh database in a temp directory and fills it
+    public static BenchmarkDataset create(int users, int questions, int answersPerQuestion, long seed)
+            throws IOException, SQLException {
+        Path dir = Files.createTempDirectory("cse360-bench");
+        DatabaseHelper db = new DatabaseHelper(dir.resolve("bench").toString());
+        SplittableRandom random = new SplittableRandom(seed);
+
+        List<NewUser> accounts = new ArrayList<>(users);
+        for (int i = 0; i < users; i++) {
+            accounts.add(new NewUser(username(i), PASSWORD, username(i) + "@asu.edu", ROLES[i % ROLES.length]));
+        }
+        db.registerAll(accounts);
+
+        int firstQid = 0;
+        int lastQid = 0;
+        try (Connection conn = db.getPool().getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "INSERT INTO QUESTIONS (USERNAME, TITLE, BODY, ANSWER_COUNT) VALUES (?, ?, ?, ?)")) {
+                for (int i = 0; i < questions; i++) {
+                    ps.setString(1, username(random.nextInt(users)));
+                    ps.setString(2, text(random, 4 + random.nextInt(6)));
+                    ps.setString(3, text(random, 20 + random.nextInt(60)));
+                    // the answers below bypass addAnswer, so the counter is filled in here
+                    ps.setInt(4, answersPerQuestion);
+                    ps.addBatch();
+                    if (i % 1_000 == 999) {
+                        ps.executeBatch();
+                        conn.commit();
+                    }
+                }
+                ps.executeBatch();
+                conn.commit();
+            }
+            try (var rs = conn.createStatement().executeQuery("SELECT MIN(QID), MAX(QID) FROM QUESTIONS")) {
+                rs.next();
+                firstQid = rs.getInt(1);
+                lastQid = rs.getInt(2);
+            }
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "INSERT INTO ANSWERS (QID, USERNAME, BODY) VALUES (?, ?, ?)")) {
+                int batched = 0;
+                for (int qid = firstQid; qid <= lastQid && questions > 0; qid++) {
+                    for (int a = 0; a < answersPerQuestion; a++) {
+                        ps.setInt(1, qid);
+                        ps.setString(2, username(random.nextInt(users)));
+                        ps.setString(3, text(random, 10 + random.nextInt(40)));
+                        ps.addBatch();
+                        if (++batched % 1_000 == 0) {
+                            ps.executeBatch();
+                            conn.commit();
+                        }
+                    }
+                }
+                ps.executeBatch();
+                conn.commit();
+            }
+        }
+        return new BenchmarkDataset(dir, db, users, firstQid, lastQid);
+    }
+
+    public DatabaseHelper db() { return db; }
+
+    public int users() { return users; }
+
+    public static String username(int i) {
+        return "user" + i;
+    }
+
+    public String randomUser(SplittableRandom random) {
+        return username(random.nextInt(users));
+    }
+
+    // a qid from the generated range, -1 if there are no questions
+    public int randomQid(SplittableRandom random) {
+        return lastQid == 0 ? -1 : firstQid + random.nextInt(lastQid - firstQid + 1);
+    }
+
+    public static String randomWord(SplittableRandom random) {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+
+    public static String text(SplittableRandom random, int words) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) sb.append(' ');
+            sb.append(randomWord(random));
+        }
+        return sb.toString();
+    }
+
+    // closes the database and deletes its files
+    @Override
+    public void close() throws IOException {
+        db.close();
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path p : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(p);
+            }
+        }
+    }
+}
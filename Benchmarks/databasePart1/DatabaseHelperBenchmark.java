@@ -0,0 +1,133 @@
+package databasePart1;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH benchmarks for the DatabaseHelper calls the pages make most.
+ * Every trial builds its own dataset in a temp directory, so nothing touches ./database.
+ *
+ * Throughput is reported in ops/ms, and SampleTime gives the latency percentiles (p50 to p99.99).
+ * Results are also written to benchmark-results.json unless -rf/-rff say otherwise.
+ * Run it with RunBenchmarks.bat, or directly:
+ *   java -cp ... databasePart1.DatabaseHelperBenchmark -p questions=1000,100000 -t 4
+ *
+ * addQuestion and addAnswer really insert, so the dataset grows during those runs.
+ * getUserRoles is answered by the role cache once it is warm, which is what the pages see.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DatabaseHelperBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Data {
+        @Param({"1000", "10000", "100000", "1000000"})
+        public int questions;
+
+        @Param({"1000"})
+        public int users;
+
+        @Param({"2"})
+        public int answersPerQuestion;
+
+        BenchmarkDataset dataset;
+        DatabaseHelper db;
+
+        @Setup(Level.Trial)
+        public void setUp() throws Exception {
+            dataset = BenchmarkDataset.create(users, questions, answersPerQuestion, 42);
+            db = dataset.db();
+            // build the search index before measuring, the first search loads it
+            db.searchQuestions("java");
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws Exception {
+            dataset.close();
+        }
+    }
+
+    // random keys per benchmark thread
+    @State(Scope.Thread)
+    public static class Keys {
+        final SplittableRandom random = new SplittableRandom(Thread.currentThread().threadId());
+    }
+
+    @Benchmark
+    public boolean login(Data d, Keys k) {
+        return d.db.login(d.dataset.randomUser(k.random), BenchmarkDataset.PASSWORD);
+    }
+
+    @Benchmark
+    public List<String> getUserRoles(Data d, Keys k) {
+        return d.db.getUserRoles(d.dataset.randomUser(k.random));
+    }
+
+    @Benchmark
+    public boolean addQuestion(Data d, Keys k) {
+        return d.db.addQuestion(d.dataset.randomUser(k.random),
+                BenchmarkDataset.text(k.random, 6), BenchmarkDataset.text(k.random, 40));
+    }
+
+    @Benchmark
+    public boolean addAnswer(Data d, Keys k) {
+        return d.db.addAnswer(d.dataset.randomQid(k.random), d.dataset.randomUser(k.random),
+                BenchmarkDataset.text(k.random, 25));
+    }
+
+    @Benchmark
+    public List<QuestionRow> getAllQuestions(Data d) {
+        return d.db.getAllQuestions();
+    }
+
+    @Benchmark
+    public List<AnswerRow> getAnswers(Data d, Keys k) {
+        return d.db.getAnswers(d.dataset.randomQid(k.random));
+    }
+
+    @Benchmark
+    public List<QuestionRow> searchQuestions(Data d, Keys k) {
+        return d.db.searchQuestions(BenchmarkDataset.randomWord(k.random) + " " + BenchmarkDataset.randomWord(k.random));
+    }
+
+    @Benchmark
+    public List<UserRow> getAllUsers(Data d) {
+        return d.db.getAllUsers();
+    }
+
+    // accepts the usual jmh command line, defaults to this class and json results
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions cli = new CommandLineOptions(args);
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(cli);
+        if (cli.getIncludes().isEmpty()) {
+            options.include(DatabaseHelperBenchmark.class.getName());
+        }
+        if (!cli.getResultFormat().hasValue()) {
+            options.resultFormat(ResultFormatType.JSON).result("benchmark-results.json");
+        }
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,121 @@
+package application;
+
+import static org.junit.Assert.*;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import databasePart1.DatabaseHelper;
+
+/**
+ * Tests for the csv import: the line splitter, and that every bad row is reported on its own
+ * line while the good rows around it are still imported.
+ */
+public class BulkUserImporterTest {
+
+    private Path dir;
+    private DatabaseHelper db;
+
+    @Before
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("cse360-import");
+        db = new DatabaseHelper(dir.resolve("db").toString());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        db.close();
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path p : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(p);
+            }
+        }
+    }
+
+    private BulkUserImporter.Report importText(String... lines) throws IOException {
+        String csv = String.join("\n", lines);
+        return new BulkUserImporter(db).importCsv(new BufferedReader(new StringReader(csv)));
+    }
+
+    // ----- SPLITTER TESTS -----
+
+    @Test
+    public void testSplitPlainFields() {
+        assertEquals(Arrays.asList("alex", "pw", "a@b.c"), BulkUserImporter.splitCsv("alex,pw,a@b.c"));
+        assertEquals(Arrays.asList("alex", "", ""), BulkUserImporter.splitCsv("alex,,"));
+    }
+
+    @Test
+    public void testSplitQuotedFields() {
+        assertEquals(Arrays.asList("alex", "pa,ss", "a@b.c"), BulkUserImporter.splitCsv("alex,\"pa,ss\",a@b.c"));
+        assertEquals(Arrays.asList("alex", "say \"hi\"", "x"), BulkUserImporter.splitCsv("alex,\"say \"\"hi\"\"\",x"));
+    }
+
+    @Test
+    public void testSplitUnterminatedQuote() {
+        assertNull(BulkUserImporter.splitCsv("alex,\"oops,a@b.c"));
+    }
+
+    // ----- IMPORT TESTS -----
+
+    @Test
+    public void testGoodRowsImportAndBadRowsAreReported() throws Exception {
+        BulkUserImporter.Report report = importText(
+                "username,password,email,role",
+                "alice01,Passw0rd!,alice@example.com",
+                "bob,Passw0rd!,bob@example.com",                 // name too short
+                "carol01,password,carol@example.com",            // weak password
+                "dave01,Passw0rd!,no-at-sign",
+                "erin01,Passw0rd!,erin@example.com,wizard",
+                "frank01,\"Passw0rd!",                           // unterminated quote
+                "",
+                "alice01,Passw0rd!,again@example.com",           // duplicate in the file
+                "gina01,\"Pass,w0rd!\",gina@example.com,staff");
+
+        assertEquals(9, report.rows());
+        assertEquals(2, report.imported());
+
+        List<BulkUserImporter.RowError> errors = report.errors();
+        assertEquals(6, errors.size());
+        // line numbers count the header, errors come back in file order
+        int[] lines = errors.stream().mapToInt(BulkUserImporter.RowError::line).toArray();
+        assertArrayEquals(new int[]{3, 4, 5, 6, 7, 9}, lines);
+        assertTrue(errors.get(0).message().startsWith("Username:"));
+        assertTrue(errors.get(1).message().startsWith("Password:"));
+        assertEquals("Invalid email", errors.get(2).message());
+        assertEquals("Unknown role: wizard", errors.get(3).message());
+        assertEquals("Unterminated quote", errors.get(4).message());
+        assertEquals("Duplicate username in file", errors.get(5).message());
+
+        assertTrue(db.login("alice01", "Passw0rd!"));
+        assertTrue(db.login("gina01", "Pass,w0rd!"));
+        assertEquals(List.of("staff"), db.getUserRoles("gina01"));
+        assertEquals(List.of("student"), db.getUserRoles("alice01"));
+    }
+
+    @Test
+    public void testNamesAlreadyInTheDatabaseFailAlone() throws Exception {
+        assertTrue(db.register("alice01", "Passw0rd!", "alice@example.com"));
+
+        BulkUserImporter.Report report = importText(
+                "alice01,Passw0rd!,alice@example.com",
+                "hank01,Passw0rd!,hank@example.com");
+
+        assertEquals(1, report.imported());
+        assertEquals(1, report.errors().size());
+        assertEquals(1, report.errors().get(0).line());
+        assertEquals("Username already exists", report.errors().get(0).message());
+        assertTrue(db.login("hank01", "Passw0rd!"));
+    }
+}
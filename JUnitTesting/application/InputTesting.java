@@ -6,6 +6,8 @@ import org.junit.Test;
 import static org.junit.Assert.*;
 import java.util.List;
 import java.util.ArrayList;
+import databasePart1.AnswerRow;
+import databasePart1.QuestionRow;
 
 /**
  * Unit tests for questions and answers using a mock database
@@ -26,6 +28,8 @@ public class InputTesting {
     @After
     public void tearDown() {
         System.out.println("Cleaning up after test...");
+        // the mock still opens the real database underneath, close its pool and writer thread
+        db.close();
     }
 
     // ----- QUESTION TESTS -----
@@ -35,12 +39,22 @@ public class InputTesting {
         boolean ok = db.addQuestion(username, "How to use JUnit?", "I want to test Java code.");
         assertTrue(ok);
 
-        List<String[]> questions = db.getAllQuestions();
+        List<QuestionRow> questions = db.getAllQuestions();
         assertEquals(1, questions.size());
-        String[] q = questions.get(0);
-        assertEquals(username, q[1]);
-        assertEquals("How to use JUnit?", q[2]);
-        assertEquals("I want to test Java code.", q[3]);
+        QuestionRow q = questions.get(0);
+        assertEquals(username, q.username());
+        assertEquals("How to use JUnit?", q.title());
+        assertEquals("I want to test Java code.", q.body());
+    }
+
+    @Test
+    public void testManagerAddQuestionSetsId() {
+        QuestionManager manager = new QuestionManager(db, username);
+        Question q = new Question("Where is my id?", "It should come from the database.", username);
+
+        assertTrue(manager.addQuestion(q));
+        assertTrue(q.getId() > 0);
+        assertEquals(q.getId(), db.getAllQuestions().get(0).qid());
     }
 
     @Test
@@ -48,9 +62,9 @@ public class InputTesting {
         db.addQuestion(username, "Java Question", "How to run JUnit tests?");
         db.addQuestion(username, "Python Question", "How to use lists?");
 
-        List<String[]> results = db.searchQuestions("java");
+        List<QuestionRow> results = db.searchQuestions("java");
         assertEquals(1, results.size());
-        assertEquals("Java Question", results.get(0)[2]);
+        assertEquals("Java Question", results.get(0).title());
     }
 
     
@@ -62,11 +76,11 @@ public class InputTesting {
         db.addQuestion(username, "C++ Basics", "C++ syntax");
 
         // Search for "java" (case-insensitive)
-        List<String[]> results = db.searchQuestions("java");
+        List<QuestionRow> results = db.searchQuestions("java");
 
         // Expect only one match
         assertEquals(1, results.size());
-        assertEquals("Java Basics", results.get(0)[2]);
+        assertEquals("Java Basics", results.get(0).title());
     }
 
     @Test
@@ -78,13 +92,13 @@ public class InputTesting {
         db.addQuestion(username, "C++ Functions", "Function overloading");
 
         // Search for "java" (case-insensitive)
-        List<String[]> results = db.searchQuestions("java");
+        List<QuestionRow> results = db.searchQuestions("java");
 
         // Expect two matches
         assertEquals(2, results.size());
         List<String> titles = new ArrayList<>();
-        for (String[] r : results) {
-            titles.add(r[2]);
+        for (QuestionRow r : results) {
+            titles.add(r.title());
         }
         assertTrue(titles.contains("Java OOP"));
         assertTrue(titles.contains("Java Streams"));
@@ -97,64 +111,73 @@ public class InputTesting {
     @Test
     public void testAddSingleAnswer() {
         db.addQuestion(username, "What is Java?", "Explain in simple terms.");
-        int qid = Integer.parseInt(db.getAllQuestions().get(0)[0]);
+        int qid = db.getAllQuestions().get(0).qid();
 
         boolean ok = db.addAnswer(qid, "Bob", "Java is a programming language.");
         assertTrue(ok);
 
-        List<String[]> answers = db.getAnswers(qid);
+        List<AnswerRow> answers = db.getAnswers(qid);
         assertEquals(1, answers.size());
-        assertEquals("Bob", answers.get(0)[1]);
-        assertEquals("Java is a programming language.", answers.get(0)[2]);
+        assertEquals("Bob", answers.get(0).username());
+        assertEquals("Java is a programming language.", answers.get(0).body());
     }
 
     @Test
     public void testAddMultipleAnswers() {
         db.addQuestion(username, "What is OOP?", "Explain OOP concepts.");
-        int qid = Integer.parseInt(db.getAllQuestions().get(0)[0]);
+        int qid = db.getAllQuestions().get(0).qid();
 
         db.addAnswer(qid, "Bob", "OOP is Object Oriented Programming.");
         db.addAnswer(qid, "Charlie", "It uses classes and objects.");
 
-        List<String[]> answers = db.getAnswers(qid);
+        List<AnswerRow> answers = db.getAnswers(qid);
         assertEquals(2, answers.size());
-        assertEquals("Bob", answers.get(0)[1]);
-        assertEquals("Charlie", answers.get(1)[1]);
+        assertEquals("Bob", answers.get(0).username());
+        assertEquals("Charlie", answers.get(1).username());
     }
 
     @Test
     public void testMarkAnswerAccepted() {
         db.addQuestion(username, "What is JUnit?", "Explain JUnit basics.");
-        int qid = Integer.parseInt(db.getAllQuestions().get(0)[0]);
+        int qid = db.getAllQuestions().get(0).qid();
 
         db.addAnswer(qid, "Bob", "JUnit is a testing framework.");
         db.addAnswer(qid, "Charlie", "It allows unit testing in Java.");
 
-        List<String[]> answers = db.getAnswers(qid);
-        int aidCharlie = Integer.parseInt(answers.get(1)[0]);
+        List<AnswerRow> answers = db.getAnswers(qid);
+        int aidCharlie = answers.get(1).aid();
 
         boolean ok = db.markAnswerAccepted(aidCharlie);
         assertTrue(ok);
 
         answers = db.getAnswers(qid);
-        assertEquals("TRUE", answers.get(1)[3]);
-        assertEquals("FALSE", answers.get(0)[3]);
+        assertTrue(answers.get(1).accepted());
+        assertFalse(answers.get(0).accepted());
     }
     
     
 
+    // saves an answer through the db, so it has an AID like one loaded on the answer page
+    private void save(Question q, Answer a) {
+        db.addAnswer(q.getId(), a.getAuthor(), a.getText());
+        List<AnswerRow> rows = db.getAnswers(q.getId());
+        a.setId(rows.get(rows.size() - 1).aid());
+        q.addAnswer(a);
+    }
+
     @Test
     public void testMarkAnswerAcceptedWithManager() {
         // Create a question and two answers
         Question q = new Question("What is inheritance?", "Explain OOP inheritance.", username);
         Answer a1 = new Answer("It allows one class to use another’s fields.", "Bob");
         Answer a2 = new Answer("It enables code reuse via subclassing.", "Charlie");
-        q.addAnswer(a1);
-        q.addAnswer(a2);
+        QuestionManager manager = new QuestionManager(db, username);
+        manager.addQuestion(q);
+        save(q, a1);
+        save(q, a2);
 
         // Mark one answer accepted using manager logic
-        QuestionManager manager = new QuestionManager(db, username);
-        manager.markAnswerAccepted(q, a2);
+        assertTrue(manager.markAnswerAccepted(q, a2));
 
         // Verify results
         assertTrue(a2.isAccepted());
@@ -166,6 +189,18 @@ public class InputTesting {
     
  // --- existing question tests here ---
 
+    @Test
+    public void testMarkUnsavedAnswerAcceptedFails() {
+        Question q = new Question("Is this saved?", "Not yet.", username);
+        Answer a = new Answer("Only in memory.", "Bob");
+        q.addAnswer(a);
+
+        QuestionManager manager = new QuestionManager(db, username);
+        assertFalse(manager.markAnswerAccepted(q, a));
+        assertFalse(a.isAccepted());
+        assertFalse(q.isSolved());
+    }
+
     @Test
     public void testMarkAnswerAcceptedWithManager_DifferentContent() {
         // Create a new question with different text
@@ -177,12 +212,13 @@ public class InputTesting {
         Answer a1 = new Answer("Polymorphism allows methods to behave differently based on the object instance.", "Diana");
         Answer a2 = new Answer("It’s the ability for subclasses to redefine parent methods for specific behavior.", "Ethan");
 
-        q.addAnswer(a1);
-        q.addAnswer(a2);
+        QuestionManager manager = new QuestionManager(db, username);
+        manager.addQuestion(q);
+        save(q, a1);
+        save(q, a2);
 
         // Mark one answer accepted using manager logic
-        QuestionManager manager = new QuestionManager(db, username);
-        manager.markAnswerAccepted(q, a1);
+        assertTrue(manager.markAnswerAccepted(q, a1));
 
         // Verify results
         assertTrue(a1.isAccepted());
@@ -201,28 +237,46 @@ public class InputTesting {
 
     // ----- MOCK DATABASE -----
     private static class MockDatabaseHelper extends databasePart1.DatabaseHelper {
-        private final List<String[]> questions = new ArrayList<>();
-        private final List<String[]> answers = new ArrayList<>();
+        private final List<QuestionRow> questions = new ArrayList<>();
+        private final List<AnswerRow> answers = new ArrayList<>();
         private int qidCounter = 1;
         private int aidCounter = 1;
 
         @Override
         public boolean addQuestion(String username, String title, String body) {
-            questions.add(new String[]{String.valueOf(qidCounter++), username, title, body, ""});
-            return true;
+            return createQuestion(username, title, body) > 0;
+        }
+
+        @Override
+        public int createQuestion(String username, String title, String body) {
+            int qid = qidCounter++;
+            questions.add(new QuestionRow(qid, username, title, body, null));
+            return qid;
         }
 
         @Override
-        public List<String[]> getAllQuestions() {
+        public List<QuestionRow> getAllQuestions() {
             return new ArrayList<>(questions);
         }
 
         @Override
-        public List<String[]> searchQuestions(String keyword) {
-            List<String[]> results = new ArrayList<>();
-            for (String[] q : questions) {
-                if (q[2].toLowerCase().contains(keyword.toLowerCase()) ||
-                    q[3].toLowerCase().contains(keyword.toLowerCase())) {
+        public boolean updateQuestion(int qid, String newTitle, String newBody) {
+            for (int i = 0; i < questions.size(); i++) {
+                QuestionRow q = questions.get(i);
+                if (q.qid() == qid) {
+                    questions.set(i, new QuestionRow(qid, q.username(), newTitle, newBody, q.createdAt()));
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public List<QuestionRow> searchQuestions(String keyword) {
+            List<QuestionRow> results = new ArrayList<>();
+            for (QuestionRow q : questions) {
+                if (q.title().toLowerCase().contains(keyword.toLowerCase()) ||
+                    q.body().toLowerCase().contains(keyword.toLowerCase())) {
                     results.add(q);
                 }
             }
@@ -231,15 +285,15 @@ public class InputTesting {
 
         @Override
         public boolean addAnswer(int qid, String username, String body) {
-            answers.add(new String[]{String.valueOf(aidCounter++), username, body, "FALSE", String.valueOf(qid)});
+            answers.add(new AnswerRow(aidCounter++, qid, username, body, false, null));
             return true;
         }
 
         @Override
-        public List<String[]> getAnswers(int qid) {
-            List<String[]> result = new ArrayList<>();
-            for (String[] a : answers) {
-                if (Integer.parseInt(a[4]) == qid) {
+        public List<AnswerRow> getAnswers(int qid) {
+            List<AnswerRow> result = new ArrayList<>();
+            for (AnswerRow a : answers) {
+                if (a.qid() == qid) {
                     result.add(a);
                 }
             }
@@ -249,12 +303,13 @@ public class InputTesting {
         @Override
         public boolean markAnswerAccepted(int aid) {
             boolean found = false;
-            for (String[] a : answers) {
-                if (Integer.parseInt(a[0]) == aid) {
-                    a[3] = "TRUE";
+            for (int i = 0; i < answers.size(); i++) {
+                AnswerRow a = answers.get(i);
+                if (a.aid() == aid) {
                     found = true;
-                } else if (a[3].equals("TRUE")) {
-                    a[3] = "FALSE";
+                }
+                if ((a.aid() == aid) != a.accepted()) {
+                    answers.set(i, new AnswerRow(a.aid(), a.qid(), a.username(), a.body(), a.aid() == aid, a.createdAt()));
                 }
             }
             return found;
@@ -278,7 +333,7 @@ public class InputTesting {
         assertTrue(allBefore.size() >= 2);
 
         // Try deleting first question
-        int qid = Integer.parseInt(db.getAllQuestions().get(0)[0]);
+        int qid = db.getAllQuestions().get(0).qid();
         boolean deleted = db.deleteQuestion(qid);
 
         // Basic validation
@@ -304,7 +359,7 @@ public class InputTesting {
         assertTrue(before.size() >= 2);
 
         // Delete one question safely
-        int qidToDelete = Integer.parseInt(db.getAllQuestions().get(1)[0]);
+        int qidToDelete = db.getAllQuestions().get(1).qid();
         boolean deleted = db.deleteQuestion(qidToDelete);
 
         // The method should execute successfully
@@ -320,9 +375,10 @@ public class InputTesting {
         Question q = new Question("Old Title 2", "Another body", username);
         manager.addQuestion(q);
 
-        // Attempt to update title safely
+        // Attempt to update title safely, addressed by the question's id
+        Question saved = manager.getAllQuestions().get(0);
         try {
-            manager.updateQuestionTitle("Old Title 2", "New Title 2");
+            manager.updateQuestionTitle(saved, "New Title 2");
         } catch (Exception e) {
             fail("updateQuestionTitle should not throw, even if question not found");
         }
@@ -330,7 +386,7 @@ public class InputTesting {
         // Optional: check new title presence
         ArrayList<Question> all = manager.getAllQuestions();
         boolean found = all.stream().anyMatch(quest -> quest.getTitle().equals("New Title 2"));
-        assertTrue(true); 
+        assertTrue(found);
     }
 
     
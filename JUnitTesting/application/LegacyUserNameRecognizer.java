@@ -0,0 +1,128 @@
+package application;
+
+/**
+ * The UserName recognizer as it was before it became a transition table: the baseline's
+ * while loop over a switch, with its trace output removed. UserNameRecognizerTest runs both
+ * over the same inputs and expects the same message and error index from each.
+ * Keeps its state in fields like the original did, so one instance per thread.
+ */
+class LegacyUserNameRecognizer {
+
+    String errorMessage = "";
+    int indexOfError = -1;
+
+    private int state;
+    private int nextState;
+    private String inputLine;
+    private char currentChar;
+    private int currentCharNdx;
+    private boolean running;
+    private int userNameSize;
+
+    private void moveToNextCharacter() {
+        currentCharNdx++;
+        if (currentCharNdx < inputLine.length()) {
+            currentChar = inputLine.charAt(currentCharNdx);
+        } else {
+            currentChar = ' ';
+            running = false;
+        }
+    }
+
+    private static boolean isLetter(char c) {
+        return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z');
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    String checkForValidUserName(String input) {
+        if (input.length() <= 0) {
+            indexOfError = 0;
+            return "\n*** ERROR *** The input is empty";
+        }
+
+        state = 0;
+        inputLine = input;
+        currentCharNdx = 0;
+        currentChar = input.charAt(0);
+        running = true;
+        nextState = -1;
+        userNameSize = 0;
+
+        while (running) {
+            switch (state) {
+                case 0:
+                    if (isLetter(currentChar)) {
+                        nextState = 1;
+                        userNameSize++;
+                    } else {
+                        running = false;
+                    }
+                    break;
+
+                case 1:
+                    if (isLetter(currentChar) || isDigit(currentChar)) {
+                        nextState = 1;
+                        userNameSize++;
+                    } else if (currentChar == '.' || currentChar == '-' || currentChar == '_') {
+                        nextState = 2;
+                        userNameSize++;
+                    } else {
+                        running = false;
+                    }
+                    if (userNameSize > 16) running = false;
+                    break;
+
+                case 2:
+                    if (isLetter(currentChar) || isDigit(currentChar)) {
+                        nextState = 1;
+                        userNameSize++;
+                    } else {
+                        running = false;
+                    }
+                    if (userNameSize > 16) running = false;
+                    break;
+
+                default:
+                    running = false;
+            }
+
+            if (running) {
+                moveToNextCharacter();
+                state = nextState;
+                nextState = -1;
+            }
+        }
+
+        indexOfError = currentCharNdx;
+        errorMessage = "\n*** ERROR *** ";
+
+        switch (state) {
+            case 0:
+                errorMessage += "A UserName must start with A-Z, a-z.\n";
+                return errorMessage;
+
+            case 1:
+                if (userNameSize < 4) {
+                    errorMessage += "A UserName must have at least 4 characters.\n";
+                } else if (userNameSize > 16) {
+                    errorMessage += "A UserName must have no more than 16 character.\n";
+                } else if (currentCharNdx < input.length()) {
+                    errorMessage += "A UserName character may only contain the characters A-Z, a-z, 0-9.\n";
+                } else {
+                    indexOfError = -1;
+                    errorMessage = "";
+                }
+                return errorMessage;
+
+            case 2:
+                errorMessage += "A UserName character after a period, minus sign, or underscore must be A-Z, a-z, 0-9.\n";
+                return errorMessage;
+
+            default:
+                return "";
+        }
+    }
+}
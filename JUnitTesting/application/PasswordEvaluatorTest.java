@@ -0,0 +1,98 @@
+package application;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+/**
+ * Tests for the password evaluator: the status, missed-condition bits, error index and message
+ * of each Result, and that many evaluations running at once each get their own answer.
+ */
+public class PasswordEvaluatorTest {
+
+    // a password, then what evaluate must say about it
+    private record Case(String password, PasswordEvaluator.Result.Status status, int missing, int errorIndex,
+                        String message) { }
+
+    private static final Case[] CASES = {
+            new Case("Passw0rd!", PasswordEvaluator.Result.Status.VALID, 0, -1, ""),
+            new Case("", PasswordEvaluator.Result.Status.EMPTY, 0, 0, "*** Error *** The password is empty!"),
+            new Case("Pass word1!", PasswordEvaluator.Result.Status.INVALID_CHARACTER, 0, 4,
+                    "*** Error *** An invalid character has been found!"),
+            new Case("Pässw0rd!", PasswordEvaluator.Result.Status.INVALID_CHARACTER, 0, 1,
+                    "*** Error *** An invalid character has been found!"),
+            new Case("password", PasswordEvaluator.Result.Status.CONDITIONS_NOT_MET,
+                    PasswordEvaluator.UPPER_CASE | PasswordEvaluator.NUMERIC_DIGIT | PasswordEvaluator.SPECIAL_CHAR, 8,
+                    "Upper case; Numeric digits; Special character; conditions were not satisfied"),
+            new Case("PASSWORD12", PasswordEvaluator.Result.Status.CONDITIONS_NOT_MET,
+                    PasswordEvaluator.LOWER_CASE | PasswordEvaluator.SPECIAL_CHAR, 10,
+                    "Lower case; Special character; conditions were not satisfied"),
+            new Case("Pa1!", PasswordEvaluator.Result.Status.CONDITIONS_NOT_MET, PasswordEvaluator.LONG_ENOUGH, 4,
+                    "Long Enough; conditions were not satisfied"),
+            new Case("!!!!", PasswordEvaluator.Result.Status.CONDITIONS_NOT_MET,
+                    PasswordEvaluator.UPPER_CASE | PasswordEvaluator.LOWER_CASE | PasswordEvaluator.NUMERIC_DIGIT
+                            | PasswordEvaluator.LONG_ENOUGH, 4,
+                    "Upper case; Lower case; Numeric digits; Long Enough; conditions were not satisfied"),
+    };
+
+    private static void assertCase(Case c, PasswordEvaluator.Result result) {
+        assertEquals(c.password(), c.status(), result.getStatus());
+        assertEquals(c.password(), c.status() == PasswordEvaluator.Result.Status.VALID, result.isValid());
+        assertEquals(c.password(), c.missing(), result.getMissingConditions());
+        assertEquals(c.password(), c.errorIndex(), result.getErrorIndex());
+        assertEquals(c.password(), c.message(), result.getMessage());
+    }
+
+    @Test
+    public void testEachCase() {
+        for (Case c : CASES) {
+            assertCase(c, PasswordEvaluator.evaluate(c.password()));
+            assertEquals(c.message(), PasswordEvaluator.evaluatePassword(c.password()));
+        }
+        assertEquals(PasswordEvaluator.Result.Status.EMPTY, PasswordEvaluator.evaluate(null).getStatus());
+    }
+
+    @Test
+    public void testIsMissingReadsSingleConditions() {
+        PasswordEvaluator.Result result = PasswordEvaluator.evaluate("abcdefg1");
+        assertTrue(result.isMissing(PasswordEvaluator.UPPER_CASE));
+        assertTrue(result.isMissing(PasswordEvaluator.SPECIAL_CHAR));
+        assertFalse(result.isMissing(PasswordEvaluator.LOWER_CASE));
+        assertFalse(result.isMissing(PasswordEvaluator.NUMERIC_DIGIT));
+        assertFalse(result.isMissing(PasswordEvaluator.LONG_ENOUGH));
+    }
+
+    @Test
+    public void testParallelEvaluationsKeepTheirOwnResults() throws Exception {
+        // every thread walks the cases from a different starting point, so different passwords
+        // are always being evaluated at the same moment
+        int threads = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Callable<Void>> tasks = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int offset = t;
+                tasks.add(() -> {
+                    for (int i = 0; i < 20_000; i++) {
+                        Case c = CASES[(i + offset) % CASES.length];
+                        assertCase(c, PasswordEvaluator.evaluate(c.password()));
+                    }
+                    return null;
+                });
+            }
+            for (Future<Void> f : pool.invokeAll(tasks)) {
+                // rethrows the first assertion that failed on a worker
+                f.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package application;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+/**
+ * Tests for the table-driven UserName recognizer. Every input is also run through the
+ * baseline state machine (LegacyUserNameRecognizer) and must get the same message and the
+ * same error index, then the batch methods are checked against single calls.
+ */
+public class UserNameRecognizerTest {
+
+    // letters, a digit, each separator, and characters no state accepts
+    private static final char[] ALPHABET = {'a', 'Z', '7', '.', '-', '_', '!', ' ', 'é'};
+
+    private static void assertSameAsLegacy(String input) {
+        LegacyUserNameRecognizer legacy = new LegacyUserNameRecognizer();
+        String expected = legacy.checkForValidUserName(input);
+        UserNameRecognizer.Result result = UserNameRecognizer.recognize(input);
+        assertEquals("message for \"" + input + "\"", expected, result.getMessage());
+        assertEquals("error index for \"" + input + "\"", legacy.indexOfError, result.getErrorIndex());
+        assertEquals(expected, UserNameRecognizer.checkForValidUserName(input));
+    }
+
+    private static UserNameRecognizer.Result.Status status(String input) {
+        return UserNameRecognizer.recognize(input).getStatus();
+    }
+
+    @Test
+    public void testBadStartCharacter() {
+        for (String input : new String[]{"1abc", "_abcd", ".abcd", "-abcd", "!abcd", " abcd", "éabcd"}) {
+            assertEquals(input, UserNameRecognizer.Result.Status.INVALID_START, status(input));
+            assertEquals(0, UserNameRecognizer.recognize(input).getErrorIndex());
+            assertSameAsLegacy(input);
+        }
+    }
+
+    @Test
+    public void testSeparatorMustBeFollowedByLetterOrDigit() {
+        for (String input : new String[]{"ab._cd", "ab-.cd", "ab__cd", "abc-", "abc.", "ab_!cd", "ab. cd"}) {
+            assertEquals(input, UserNameRecognizer.Result.Status.INVALID_AFTER_SEPARATOR, status(input));
+            assertSameAsLegacy(input);
+        }
+        assertEquals(3, UserNameRecognizer.recognize("ab._cd").getErrorIndex());
+        assertEquals(4, UserNameRecognizer.recognize("abc-").getErrorIndex());
+
+        // one separator between letters or digits is fine
+        for (String input : new String[]{"ab.cd", "ab-1d", "a_b_c_d"}) {
+            assertTrue(input, UserNameRecognizer.recognize(input).isValid());
+            assertSameAsLegacy(input);
+        }
+    }
+
+    @Test
+    public void testSizeLimits() {
+        assertEquals(UserNameRecognizer.Result.Status.TOO_SHORT, status("abc"));
+        assertTrue(UserNameRecognizer.recognize("abcd").isValid());
+        assertTrue(UserNameRecognizer.recognize("abcdefghijklmnop").isValid());
+        assertEquals(UserNameRecognizer.Result.Status.TOO_LONG, status("abcdefghijklmnopq"));
+        assertEquals(16, UserNameRecognizer.recognize("abcdefghijklmnopq").getErrorIndex());
+        // a 16th character that is a separator leaves the FSM waiting for a 17th it will not take
+        assertEquals(UserNameRecognizer.Result.Status.INVALID_AFTER_SEPARATOR, status("abcdefghijklmno.p"));
+
+        for (String input : new String[]{"abc", "abcd", "abcdefghijklmnop", "abcdefghijklmnopq",
+                "abcdefghijklmno.p", "abcdefghijklmno.", "ab1", "ab!", "abcdefghijklmnopqrstuvwxyz"}) {
+            assertSameAsLegacy(input);
+        }
+    }
+
+    @Test
+    public void testEmptyInput() {
+        assertEquals(UserNameRecognizer.Result.Status.EMPTY, status(""));
+        assertSameAsLegacy("");
+    }
+
+    @Test
+    public void testEveryShortInputMatchesLegacy() {
+        List<String> inputs = new ArrayList<>();
+        inputs.add("");
+        for (int length = 1; length <= 5; length++) {
+            int combos = (int) Math.pow(ALPHABET.length, length);
+            for (int n = 0; n < combos; n++) {
+                char[] chars = new char[length];
+                int rest = n;
+                for (int i = 0; i < length; i++) {
+                    chars[i] = ALPHABET[rest % ALPHABET.length];
+                    rest /= ALPHABET.length;
+                }
+                inputs.add(new String(chars));
+            }
+        }
+        for (String input : inputs) assertSameAsLegacy(input);
+    }
+
+    @Test
+    public void testRandomInputsAroundTheLengthLimitMatchLegacy() {
+        Random random = new Random(360);
+        for (int n = 0; n < 20_000; n++) {
+            // mostly valid characters, so plenty of inputs get as far as the size checks
+            int length = 12 + random.nextInt(8);
+            StringBuilder sb = new StringBuilder();
+            sb.append((char) ('a' + random.nextInt(26)));
+            for (int i = 1; i < length; i++) {
+                int pick = random.nextInt(20);
+                sb.append(pick < ALPHABET.length ? ALPHABET[pick] : (char) ('a' + random.nextInt(26)));
+            }
+            assertSameAsLegacy(sb.toString());
+        }
+    }
+
+    @Test
+    public void testBatchMatchesSingleCallsInOrder() {
+        Random random = new Random(17);
+        String[] inputs = new String[5_000];
+        for (int i = 0; i < inputs.length; i++) {
+            StringBuilder sb = new StringBuilder();
+            int length = random.nextInt(20);
+            for (int j = 0; j < length; j++) sb.append(ALPHABET[random.nextInt(ALPHABET.length)]);
+            inputs[i] = sb.toString();
+        }
+
+        UserNameRecognizer.Result[] batch = UserNameRecognizer.recognizeAll(inputs);
+        assertEquals(inputs.length, batch.length);
+        for (int i = 0; i < inputs.length; i++) {
+            UserNameRecognizer.Result single = UserNameRecognizer.recognize(inputs[i]);
+            assertEquals(inputs[i], single.getStatus(), batch[i].getStatus());
+            assertEquals(inputs[i], single.getErrorIndex(), batch[i].getErrorIndex());
+        }
+
+        List<UserNameRecognizer.Result> streamed = UserNameRecognizer.recognizeAll(List.of(inputs).stream())
+                .collect(Collectors.toList());
+        assertEquals(inputs.length, streamed.size());
+        for (int i = 0; i < inputs.length; i++) {
+            assertEquals(inputs[i], batch[i].getStatus(), streamed.get(i).getStatus());
+            assertEquals(inputs[i], batch[i].getErrorIndex(), streamed.get(i).getErrorIndex());
+        }
+
+        assertEquals(0, UserNameRecognizer.recognizeAll(new String[0]).length);
+    }
+}
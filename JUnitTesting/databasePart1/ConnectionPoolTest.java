@@ -0,0 +1,120 @@
+package databasePart1;
+
+import static org.junit.Assert.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for the connection pool: reuse, reset on return, leak reports and idle eviction.
+ * Housekeeping is run by hand with a clock set minutes ahead.
+ */
+public class ConnectionPoolTest {
+
+    private Path dir;
+    private ConnectionPool pool;
+
+    @Before
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("cse360-pool");
+        pool = new ConnectionPool("jdbc:h2:file:" + dir.resolve("db"), "sa", "", 4);
+        try (Connection conn = pool.getConnection(); Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE T (X INT)");
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        pool.close();
+        TempDirs.deleteTree(dir);
+    }
+
+    private int rows() throws SQLException {
+        try (Connection conn = pool.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM T")) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    @Test
+    public void testClosedHandleGoesBackToThePool() throws Exception {
+        Connection conn = pool.getConnection();
+        assertEquals(1, pool.getActiveCount());
+        conn.close();
+        conn.close();   // a second close is a no-op
+        assertEquals(0, pool.getActiveCount());
+        assertEquals(1, pool.getIdleCount());
+
+        assertTrue(conn.isClosed());
+        try {
+            conn.createStatement();
+            fail("a returned handle should not be usable");
+        } catch (SQLException expected) {
+            // returned to the pool
+        }
+    }
+
+    @Test
+    public void testUncommittedWorkIsRolledBackOnReturn() throws Exception {
+        try (Connection conn = pool.getConnection(); Statement stmt = conn.createStatement()) {
+            conn.setAutoCommit(false);
+            stmt.execute("INSERT INTO T VALUES (1)");
+        }
+        assertEquals(0, rows());
+        try (Connection conn = pool.getConnection()) {
+            assertTrue(conn.getAutoCommit());
+        }
+    }
+
+    @Test
+    public void testLongHeldConnectionIsReportedOnce() throws Exception {
+        Connection conn = pool.getConnection();
+        pool.housekeeping(System.currentTimeMillis());
+        assertEquals(0, pool.getSuspectedLeakCount());
+
+        pool.housekeeping(System.currentTimeMillis() + 31_000);
+        assertEquals(1, pool.getSuspectedLeakCount());
+        pool.housekeeping(System.currentTimeMillis() + 62_000);
+        assertEquals(1, pool.getSuspectedLeakCount());
+
+        conn.close();
+        assertEquals(0, pool.getSuspectedLeakCount());
+    }
+
+    @Test
+    public void testIdleConnectionsAreEvictedDownToTheMinimum() throws Exception {
+        Connection[] held = new Connection[4];
+        for (int i = 0; i < held.length; i++) held[i] = pool.getConnection();
+        for (Connection c : held) c.close();
+        assertEquals(4, pool.getIdleCount());
+
+        pool.housekeeping(System.currentTimeMillis());
+        assertEquals(4, pool.getIdleCount());
+
+        // two are kept warm however long they sit
+        pool.housekeeping(System.currentTimeMillis() + 61_000);
+        assertEquals(2, pool.getIdleCount());
+        assertEquals(0, rows());
+    }
+
+    @Test
+    public void testBorrowAfterCloseFails() throws Exception {
+        pool.close();
+        try {
+            pool.getConnection();
+            fail("a closed pool should not hand out connections");
+        } catch (SQLException expected) {
+            // closed
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package databasePart1;
+
+import static org.junit.Assert.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for DatabaseHelper against a real H2 file in a temp directory: the reply counters kept
+ * on QUESTIONS, rebuildAnswerCounters, the triage queue cursor, role counting, the user filter
+ * and invitation codes.
+ */
+public class DatabaseHelperTest {
+
+    private Path dir;
+    private String dbPath;
+    private DatabaseHelper db;
+
+    @Before
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("cse360-db");
+        dbPath = dir.resolve("db").toString();
+        db = new DatabaseHelper(dbPath);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        db.close();
+        TempDirs.deleteTree(dir);
+    }
+
+    private int question(String title) throws Exception {
+        return db.submitQuestion("alex", title, "body of " + title).get(5, TimeUnit.SECONDS);
+    }
+
+    private int answer(int qid) throws Exception {
+        return db.submitAnswer(qid, "bob", "reply").get(5, TimeUnit.SECONDS);
+    }
+
+    private QuestionSummary summary(int qid) {
+        List<QuestionSummary> rows = db.getQuestionSummaries(List.of(qid));
+        assertEquals(1, rows.size());
+        return rows.get(0);
+    }
+
+    // writes behind the helper's back, like a hand edit or an old import
+    private void execute(String sql) throws Exception {
+        try (Connection conn = DriverManager.getConnection(
+                "jdbc:h2:file:" + dbPath + ";AUTO_SERVER=TRUE", "sa", "Password");
+             Statement stmt = conn.createStatement()) {
+            stmt.execute(sql);
+        }
+    }
+
+    @Test
+    public void testCountersFollowAnswerWrites() throws Exception {
+        int qid = question("counters");
+        int a1 = answer(qid);
+        int a2 = answer(qid);
+        int a3 = answer(qid);
+        assertEquals(3, summary(qid).answerCount());
+        assertFalse(summary(qid).solved());
+
+        assertTrue(db.markAnswerAccepted(a2));
+        assertTrue(summary(qid).solved());
+
+        // accepting another answer moves the flag instead of adding one
+        assertTrue(db.markAnswerAccepted(a3));
+        int accepted = 0;
+        for (AnswerRow a : db.getAnswers(qid)) {
+            if (a.accepted()) {
+                accepted++;
+                assertEquals(a3, a.aid());
+            }
+        }
+        assertEquals(1, accepted);
+
+        // losing the accepted answer makes the question unsolved again
+        assertTrue(db.deleteAnswer(a3));
+        assertEquals(2, summary(qid).answerCount());
+        assertFalse(summary(qid).solved());
+
+        assertTrue(db.deleteAnswer(a1));
+        assertEquals(1, summary(qid).answerCount());
+        assertFalse(db.markAnswerAccepted(a1));
+    }
+
+    @Test
+    public void testRebuildAnswerCountersFixesHandEdits() throws Exception {
+        int qid = question("drifted");
+        int other = question("fine");
+        answer(qid);
+        answer(other);
+        assertEquals(0, db.rebuildAnswerCounters());
+
+        execute("UPDATE QUESTIONS SET ANSWER_COUNT = 7, SOLVED = TRUE WHERE QID = " + qid);
+        execute("INSERT INTO ANSWERS (QID, USERNAME, BODY) VALUES (" + qid + ", 'bob', 'bulk loaded')");
+
+        assertEquals(2, db.rebuildAnswerCounters());
+        assertEquals(2, summary(qid).answerCount());
+        assertFalse(summary(qid).solved());
+        assertEquals(1, summary(other).answerCount());
+        assertEquals(0, db.rebuildAnswerCounters());
+    }
+
+    @Test
+    public void testTriageCursorReadsEveryQuestionOnceInOrder() throws Exception {
+        // reply counts 0..3 spread over the questions, every fifth one solved
+        List<Integer> qids = new ArrayList<>();
+        for (int i = 0; i < 23; i++) {
+            int qid = question("triage " + i);
+            qids.add(qid);
+            int last = 0;
+            for (int r = 0; r < i % 4; r++) last = answer(qid);
+            if (i % 5 == 0 && last > 0) db.markAnswerAccepted(last);
+        }
+        List<QuestionSummary> all = db.getQuestionSummaries(qids);
+
+        for (TriageOrder order : TriageOrder.values()) {
+            List<QuestionSummary> expected = new ArrayList<>();
+            for (QuestionSummary s : all) {
+                if (order.includes(s)) expected.add(s);
+            }
+            expected.sort(order.comparator());
+
+            // pages smaller than a run of equal reply counts, so PRIORITY crosses counts mid-page
+            List<QuestionSummary> walked = new ArrayList<>();
+            QuestionSummary after = null;
+            while (true) {
+                List<QuestionSummary> page = db.getTriageQueue(order, after, 4);
+                walked.addAll(page);
+                if (page.size() < 4) break;
+                after = page.get(page.size() - 1);
+            }
+
+            assertEquals(order.name(), ids(expected), ids(walked));
+            assertEquals(order.name(), walked.size(), new HashSet<>(ids(walked)).size());
+        }
+    }
+
+    private static List<Integer> ids(List<QuestionSummary> rows) {
+        List<Integer> out = new ArrayList<>();
+        for (QuestionSummary s : rows) out.add(s.qid());
+        return out;
+    }
+
+    @Test
+    public void testKeysetPagesMatchOffsetPages() throws Exception {
+        for (int i = 0; i < 10; i++) question("page " + i);
+        List<QuestionSummary> middle = db.getQuestionSummariesAt(4, 3);
+        List<QuestionSummary> above = db.getQuestionSummariesAt(1, 3);
+        List<QuestionSummary> below = db.getQuestionSummariesAt(7, 3);
+
+        // seeking down from the page above and up from the page below land on the same rows
+        assertEquals(ids(middle), ids(db.getQuestionSummariesPage(above.get(2).qid(), 3)));
+        assertEquals(ids(middle), ids(db.getQuestionSummariesAfter(below.get(0).qid(), 3)));
+        // near the top the upward seek comes back short, still newest first
+        assertEquals(ids(db.getQuestionSummariesAt(0, 1)), ids(db.getQuestionSummariesAfter(above.get(0).qid(), 3)));
+    }
+
+    @Test
+    public void testCountUsersWithRoleMatchesAnyBit() throws Exception {
+        assertTrue(db.register("alex", "Passw0rd!", "alex@example.com"));
+        assertTrue(db.register("bob", "Passw0rd!", "bob@example.com"));
+        assertTrue(db.register("cara", "Passw0rd!", "cara@example.com"));
+        assertTrue(db.addRole("alex", "admin"));
+        // one row that holds two roles
+        assertTrue(db.addRole("bob", "student reviewer"));
+        assertTrue(db.addRole("cara", "student"));
+        assertTrue(db.addRole("cara", "reviewer"));
+
+        assertEquals(1, db.countUsersWithRole("admin"));
+        assertEquals(2, db.countUsersWithRole("reviewer"));
+        assertEquals(2, db.countUsersWithRole("student"));
+        assertEquals(0, db.countUsersWithRole("staff"));
+
+        // the mask is the stored ROLE_BITS of every row, and follows role changes
+        assertEquals(Role.STUDENT.bit() | Role.REVIEWER.bit(), db.getRoleMask("bob"));
+        assertEquals(Role.STUDENT.bit() | Role.REVIEWER.bit(), db.getRoleMask("cara"));
+        assertTrue(db.removeRole("cara", "reviewer"));
+        assertEquals(Role.STUDENT.bit(), db.getRoleMask("cara"));
+        assertEquals(0, db.getRoleMask("nobody"));
+    }
+
+    @Test
+    public void testUserFilterTreatsWildcardsAsText() throws Exception {
+        assertTrue(db.register("annlee", "Passw0rd!", "ann_lee@example.com"));
+        assertTrue(db.register("annxlee", "Passw0rd!", "annxlee@example.com"));
+        assertTrue(db.register("percent", "Passw0rd!", "100%\\done@example.com"));
+
+        assertEquals(1, db.countUsers("ann_lee"));
+        assertEquals(1, db.countUsers("%"));
+        assertEquals(1, db.countUsers("\\"));
+        assertEquals(3, db.countUsers(""));
+
+        List<UserRow> page = db.getUserPage("_", DatabaseHelper.UserSort.USERNAME, true, 0, 10);
+        assertEquals(1, page.size());
+        assertEquals("annlee", page.get(0).username());
+    }
+
+    @Test
+    public void testInvitationCodeIsUsedOnceWhateverTheCase() throws Exception {
+        String code = db.generateInvitationCode();
+        assertNotNull(code);
+        assertTrue(db.validateInvitationCode(" " + code.toLowerCase() + " "));
+        assertFalse(db.validateInvitationCode(code));
+        assertFalse(db.validateInvitationCode(null));
+    }
+
+    @Test
+    public void testLowerCaseCodeFromBeforeTheUpgradeStillRedeems() throws Exception {
+        // a code as the old generator stored it, on a database that has not upper-cased codes yet
+        db.close();
+        execute("INSERT INTO INVITATIONS (CODE, USED) VALUES ('3f9a0c2e', FALSE)");
+        execute("DELETE FROM SCHEMA_HISTORY WHERE VERSION >= 9");
+        db = new DatabaseHelper(dbPath);
+
+        assertTrue(db.validateInvitationCode("3f9a0c2e"));
+        assertFalse(db.validateInvitationCode("3F9A0C2E"));
+    }
+
+    @Test
+    public void testAddRoleForMissingUserFails() throws Exception {
+        assertFalse(db.addRole("nobody", "student"));
+        assertEquals(List.of(), db.getUserRoles("nobody"));
+    }
+}
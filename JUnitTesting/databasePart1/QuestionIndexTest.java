@@ -0,0 +1,100 @@
+package databasePart1;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * Tests for the in-memory search index: how text is split into terms, the cap on how far a
+ * partly typed last word expands, and that search returns the k best matches best first.
+ */
+public class QuestionIndexTest {
+
+    @Test
+    public void testTokenizeLowercasesAndSplitsOnNonWordCharacters() {
+        assertEquals(List.of("how", "do", "i", "use", "java", "17", "s", "records"),
+                QuestionIndex.tokenize("How do I use Java-17's records?"));
+        assertEquals(List.of("a1b2", "c"), QuestionIndex.tokenize("  a1b2__c  "));
+        assertEquals(List.of(), QuestionIndex.tokenize("?!  ..."));
+        assertEquals(List.of(), QuestionIndex.tokenize(null));
+    }
+
+    @Test
+    public void testPartialLastWordMatchesAsPrefix() {
+        QuestionIndex index = new QuestionIndex();
+        index.put(1, "recursion basics", "");
+        index.put(2, "records in java", "");
+        index.put(3, "arrays", "");
+
+        assertEquals(Set.of(1, 2), ids(index.search("rec", 10)));
+        // a trailing space means the word is finished, so only an exact term matches
+        assertEquals(0, index.search("rec ", 10).length);
+        // only the last word is a prefix, words before it must match whole
+        assertArrayEquals(new int[]{3}, index.search("rec arrays", 10));
+        assertEquals(Set.of(1, 2, 3), ids(index.search("arrays rec", 10)));
+    }
+
+    @Test
+    public void testPrefixExpansionIsCapped() {
+        QuestionIndex index = new QuestionIndex();
+        for (int i = 0; i < 100; i++) {
+            index.put(i, String.format("ab%03d", i), "");
+        }
+        // the 64 smallest terms under the prefix, so the first 64 questions
+        Set<Integer> found = ids(index.search("ab", 1000));
+        assertEquals(64, found.size());
+        for (int i = 0; i < 64; i++) assertTrue(found.contains(i));
+        // a longer prefix narrows the range before the cap applies
+        assertEquals(Set.of(90, 91, 92, 93, 94, 95, 96, 97, 98, 99), ids(index.search("ab09", 1000)));
+    }
+
+    @Test
+    public void testTopKIsBestFirstAndBounded() {
+        QuestionIndex index = new QuestionIndex();
+        index.put(1, "other", "maven maven");
+        index.put(2, "maven build", "");
+        index.put(3, "other", "maven");
+        index.put(4, "maven maven plugin", "maven");
+        index.put(5, "nothing here", "at all");
+
+        int[] all = index.search("maven", 10);
+        assertEquals(4, all.length);
+        // title hits outweigh body hits
+        assertEquals(4, all[0]);
+        assertEquals(3, all[all.length - 1]);
+
+        // a smaller k keeps the same leaders in the same order
+        assertArrayEquals(Arrays.copyOf(all, 2), index.search("maven", 2));
+        assertEquals(0, index.search("maven", 0).length);
+        assertEquals(0, index.search("gradle", 10).length);
+    }
+
+    @Test
+    public void testPutReplacesAndRemoveForgets() {
+        QuestionIndex index = new QuestionIndex();
+        index.put(1, "old title", "");
+        index.put(1, "new title", "");
+        assertEquals(1, index.size());
+        assertEquals(0, index.search("old", 10).length);
+        assertArrayEquals(new int[]{1}, index.search("new", 10));
+
+        index.remove(1);
+        assertEquals(0, index.size());
+        assertEquals(0, index.search("new", 10).length);
+        // the freed slot is reused without the old terms leaking back
+        index.put(2, "fresh", "");
+        assertArrayEquals(new int[]{2}, index.search("fresh", 10));
+        assertEquals(0, index.search("title", 10).length);
+    }
+
+    private static Set<Integer> ids(int[] qids) {
+        Set<Integer> out = new HashSet<>();
+        for (int qid : qids) out.add(qid);
+        return out;
+    }
+}
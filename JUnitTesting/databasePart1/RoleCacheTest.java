@@ -0,0 +1,127 @@
+package databasePart1;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+/**
+ * Tests for RoleCache: hits, invalidation racing a load, the size bound and which entry is evicted.
+ */
+public class RoleCacheTest {
+
+    private static UserRoles roles(String... names) {
+        return new UserRoles(List.of(names), Role.maskOf(List.of(names)));
+    }
+
+    @Test
+    public void testSecondGetIsAHit() throws Exception {
+        RoleCache cache = new RoleCache(10);
+        AtomicInteger loads = new AtomicInteger();
+        RoleCache.Loader loader = u -> {
+            loads.incrementAndGet();
+            return roles("student");
+        };
+
+        assertEquals(List.of("student"), cache.get("alex", loader).names());
+        assertEquals(List.of("student"), cache.get("alex", loader).names());
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    public void testInvalidateDuringLoadIsNotCached() throws Exception {
+        RoleCache cache = new RoleCache(10);
+        AtomicReference<UserRoles> table = new AtomicReference<>(roles("student"));
+
+        // the write commits and invalidates while the old roles are still being read
+        UserRoles first = cache.get("alex", u -> {
+            UserRoles old = table.get();
+            table.set(roles("student", "staff"));
+            cache.invalidate("alex");
+            return old;
+        });
+        assertEquals(List.of("student"), first.names());
+
+        // the stale copy must not have been kept
+        assertEquals(List.of("student", "staff"), cache.get("alex", u -> table.get()).names());
+        assertEquals(0, cache.getHits());
+    }
+
+    @Test
+    public void testConcurrentReadersSeeTheLastWrite() throws Exception {
+        RoleCache cache = new RoleCache(10);
+        AtomicInteger version = new AtomicInteger();
+        RoleCache.Loader loader = u -> {
+            int v = version.get();
+            Thread.yield();
+            return roles("v" + v);
+        };
+
+        CountDownLatch go = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            threads.add(new Thread(() -> {
+                try {
+                    go.await();
+                    for (int i = 0; i < 2_000; i++) cache.get("alex", loader);
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            }));
+        }
+        Thread writer = new Thread(() -> {
+            try {
+                go.await();
+            } catch (InterruptedException e) {
+                return;
+            }
+            // same order as DatabaseHelper: commit the change, then invalidate
+            for (int i = 0; i < 500; i++) {
+                version.incrementAndGet();
+                cache.invalidate("alex");
+            }
+        });
+        threads.add(writer);
+        for (Thread t : threads) t.start();
+        go.countDown();
+        for (Thread t : threads) t.join();
+
+        assertEquals(List.of("v" + version.get()), cache.get("alex", loader).names());
+    }
+
+    @Test
+    public void testSizeStaysBoundedUnderChurn() throws Exception {
+        RoleCache cache = new RoleCache(5);
+        for (int i = 0; i < 1_000; i++) {
+            String name = "user" + (i % 50);
+            cache.get(name, u -> roles("student"));
+            if (i % 3 == 0) cache.invalidate(name);
+            assertTrue(cache.size() <= 5);
+        }
+    }
+
+    @Test
+    public void testRecentlyUsedEntrySurvivesEviction() throws Exception {
+        RoleCache cache = new RoleCache(2);
+        AtomicInteger loads = new AtomicInteger();
+        RoleCache.Loader loader = u -> {
+            loads.incrementAndGet();
+            return roles(u);
+        };
+        cache.get("a", loader);
+        cache.get("b", loader);
+        cache.get("a", loader);   // a is marked by the hit, b is not
+        cache.get("c", loader);   // the sweep passes over a and evicts b
+        cache.get("a", loader);
+        assertEquals(3, loads.get());
+        cache.get("b", loader);
+        assertEquals(4, loads.get());
+    }
+}
@@ -0,0 +1,158 @@
+package databasePart1;
+
+import static org.junit.Assert.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Runs every schema migration over a database laid out like one from before
+ * SCHEMA_HISTORY existed, with the kind of leftovers old builds wrote.
+ */
+public class SchemaMigrationsTest {
+
+    private Path dir;
+    private Connection conn;
+    private DatabaseMetrics metrics;
+
+    @Before
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("cse360-migrations");
+        conn = DriverManager.getConnection("jdbc:h2:file:" + dir.resolve("db"), "sa", "");
+        metrics = new DatabaseMetrics();
+        try (Statement stmt = conn.createStatement()) {
+            // the tables as initializeTables creates them, before any migration
+            stmt.execute("CREATE TABLE USERS (ID INT AUTO_INCREMENT PRIMARY KEY, USERNAME VARCHAR(255) UNIQUE, " +
+                    "PASSWORD VARCHAR(255), EMAIL VARCHAR(255))");
+            stmt.execute("CREATE TABLE ROLES (USERNAME VARCHAR(255), ROLE VARCHAR(255))");
+            stmt.execute("CREATE TABLE INVITATIONS (CODE VARCHAR(255) PRIMARY KEY, USED BOOLEAN DEFAULT FALSE)");
+            stmt.execute("CREATE TABLE QUESTIONS (QID INT AUTO_INCREMENT PRIMARY KEY, USERNAME VARCHAR(255), " +
+                    "TITLE VARCHAR(255), BODY VARCHAR(1000), CREATED_AT TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+            stmt.execute("CREATE TABLE ANSWERS (AID INT AUTO_INCREMENT PRIMARY KEY, QID INT, USERNAME VARCHAR(255), " +
+                    "BODY VARCHAR(1000), IS_ACCEPTED BOOLEAN DEFAULT FALSE, " +
+                    "CREATED_AT TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+
+            stmt.execute("INSERT INTO USERS (USERNAME) VALUES ('alex'), ('bob')");
+            stmt.execute("INSERT INTO ROLES VALUES ('alex', 'admin'), ('bob', 'Student Reviewer'), ('gone', 'student')");
+            stmt.execute("INSERT INTO QUESTIONS (QID, USERNAME, TITLE) VALUES (1, 'alex', 'a'), (2, 'alex', 'b')");
+            // two accepted answers on question 1, none on 2, and one answer whose question was deleted
+            stmt.execute("INSERT INTO ANSWERS (AID, QID, USERNAME, IS_ACCEPTED) VALUES " +
+                    "(1, 1, 'bob', TRUE), (2, 1, 'bob', TRUE), (3, 1, 'bob', FALSE), (4, 2, 'bob', FALSE), " +
+                    "(5, 99, 'bob', FALSE)");
+            // codes as the old generator made them, lower-case hex, and one already upper case
+            stmt.execute("INSERT INTO INVITATIONS (CODE, USED) VALUES ('3f9a0c2e', FALSE), ('b71d44e0', TRUE), " +
+                    "('ABCD2345EF', FALSE)");
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        conn.close();
+        TempDirs.deleteTree(dir);
+    }
+
+    private int count(String sql) throws SQLException {
+        try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery(sql)) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    @Test
+    public void testMigratesToTheLatestVersionOnce() throws Exception {
+        int version = SchemaMigrations.migrate(conn, metrics);
+        assertEquals(9, version);
+        assertEquals(9, SchemaMigrations.currentVersion(conn));
+        assertEquals(9, count("SELECT COUNT(*) FROM SCHEMA_HISTORY"));
+        assertEquals(1, metrics.getCalls("migrate.v9"));
+
+        // nothing left to apply the second time
+        assertEquals(9, SchemaMigrations.migrate(conn, metrics));
+        assertEquals(9, count("SELECT COUNT(*) FROM SCHEMA_HISTORY"));
+        assertEquals(1, metrics.getCalls("migrate.v9"));
+        // migrations stay out of the per-call totals
+        assertEquals(0, metrics.getTotalCalls());
+    }
+
+    @Test
+    public void testOrphansAreMovedAsideNotDropped() throws Exception {
+        SchemaMigrations.migrate(conn, metrics);
+        assertEquals(0, count("SELECT COUNT(*) FROM ANSWERS WHERE AID = 5"));
+        assertEquals(1, count("SELECT COUNT(*) FROM ORPHANED_ANSWERS WHERE AID = 5 AND QID = 99"));
+        assertEquals(0, count("SELECT COUNT(*) FROM ROLES WHERE USERNAME = 'gone'"));
+        assertEquals(1, count("SELECT COUNT(*) FROM ORPHANED_ROLES WHERE USERNAME = 'gone'"));
+        assertEquals(4, count("SELECT COUNT(*) FROM ANSWERS"));
+        // one answer and one role set aside, reported as the migration's rows
+        assertEquals(2, metrics.getRows("migrate.v2"));
+    }
+
+    @Test
+    public void testForeignKeysRejectAndCascade() throws Exception {
+        SchemaMigrations.migrate(conn, metrics);
+        try (Statement stmt = conn.createStatement()) {
+            try {
+                stmt.execute("INSERT INTO ROLES (USERNAME, ROLE) VALUES ('nobody', 'student')");
+                fail("a role for a missing user should be rejected");
+            } catch (SQLException expected) {
+                // FK_ROLES_USER
+            }
+            stmt.execute("DELETE FROM QUESTIONS WHERE QID = 2");
+        }
+        assertEquals(0, count("SELECT COUNT(*) FROM ANSWERS WHERE QID = 2"));
+    }
+
+    @Test
+    public void testRoleBitsAndCountersAreFilledIn() throws Exception {
+        SchemaMigrations.migrate(conn, metrics);
+        assertEquals(Role.ADMIN.bit(), count("SELECT ROLE_BITS FROM ROLES WHERE USERNAME = 'alex'"));
+        assertEquals(Role.STUDENT.bit() | Role.REVIEWER.bit(), count("SELECT ROLE_BITS FROM ROLES WHERE USERNAME = 'bob'"));
+
+        assertEquals(3, count("SELECT ANSWER_COUNT FROM QUESTIONS WHERE QID = 1"));
+        assertEquals(1, count("SELECT ANSWER_COUNT FROM QUESTIONS WHERE QID = 2"));
+        assertEquals(2, count("SELECT ACCEPTED_AID FROM QUESTIONS WHERE QID = 1"));
+        assertEquals(1, count("SELECT COUNT(*) FROM QUESTIONS WHERE SOLVED"));
+    }
+
+    @Test
+    public void testExtraAcceptedAnswersAreDemotedAndListed() throws Exception {
+        SchemaMigrations.migrate(conn, metrics);
+        // the newest accepted answer wins, the other loses its flag but is kept and listed
+        assertEquals(1, count("SELECT COUNT(*) FROM ANSWERS WHERE QID = 1 AND IS_ACCEPTED"));
+        assertEquals(1, count("SELECT COUNT(*) FROM ANSWERS WHERE AID = 2 AND IS_ACCEPTED"));
+        assertEquals(1, count("SELECT COUNT(*) FROM ANSWERS WHERE AID = 1"));
+        assertEquals(1, count("SELECT COUNT(*) FROM DEMOTED_ACCEPTED_ANSWERS WHERE AID = 1 AND QID = 1"));
+        assertEquals(1, count("SELECT COUNT(*) FROM DEMOTED_ACCEPTED_ANSWERS"));
+        assertEquals(1, metrics.getRows("migrate.v7"));
+    }
+
+    @Test
+    public void testOldInvitationCodesAreUpperCased() throws Exception {
+        SchemaMigrations.migrate(conn, metrics);
+        assertEquals(1, count("SELECT COUNT(*) FROM INVITATIONS WHERE CODE = '3F9A0C2E' AND NOT USED"));
+        assertEquals(1, count("SELECT COUNT(*) FROM INVITATIONS WHERE CODE = 'B71D44E0' AND USED"));
+        assertEquals(0, count("SELECT COUNT(*) FROM INVITATIONS WHERE CODE <> UPPER(CODE)"));
+        assertEquals(3, count("SELECT COUNT(*) FROM INVITATIONS"));
+        assertEquals(2, metrics.getRows("migrate.v9"));
+    }
+
+    @Test
+    public void testIndexesExist() throws Exception {
+        SchemaMigrations.migrate(conn, metrics);
+        for (String index : new String[]{"IDX_ANSWERS_QID", "IDX_ROLES_USERNAME", "IDX_QUESTIONS_USERNAME",
+                "IDX_ROLES_BITS", "IDX_QUESTIONS_QID_DESC",
+                "IDX_QUESTIONS_TRIAGE_AGE", "IDX_QUESTIONS_TRIAGE_PRIORITY"}) {
+            assertEquals(index, 1, count("SELECT COUNT(*) FROM INFORMATION_SCHEMA.INDEXES WHERE INDEX_NAME = '" + index + "'"));
+        }
+        // created by migration 1, dropped by migration 8
+        assertEquals(0, count("SELECT COUNT(*) FROM INFORMATION_SCHEMA.INDEXES WHERE INDEX_NAME = 'IDX_QUESTIONS_CREATED_AT'"));
+    }
+}
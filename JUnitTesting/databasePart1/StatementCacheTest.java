@@ -0,0 +1,99 @@
+package databasePart1;
+
+import static org.junit.Assert.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for the per-connection statement cache behind the pool: reuse of a closed statement,
+ * and that a second statement for sql already in use is handled like a cached one.
+ * The slow query log threshold is 0, so every execute is recorded.
+ */
+public class StatementCacheTest {
+
+    private static final String SQL = "SELECT X FROM T WHERE X = ?";
+
+    private Path dir;
+    private SlowQueryLog slowLog;
+    private ConnectionPool pool;
+
+    @Before
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("cse360-statements");
+        slowLog = new SlowQueryLog(null, 0);
+        pool = new ConnectionPool("jdbc:h2:file:" + dir.resolve("db"), "sa", "", 2, slowLog);
+        try (Connection conn = pool.getConnection(); Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE T (X INT)");
+            stmt.execute("INSERT INTO T VALUES (1), (2)");
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        pool.close();
+        TempDirs.deleteTree(dir);
+    }
+
+    private static int query(PreparedStatement ps, int x) throws Exception {
+        ps.setInt(1, x);
+        try (ResultSet rs = ps.executeQuery()) {
+            return rs.next() ? rs.getInt(1) : -1;
+        }
+    }
+
+    @Test
+    public void testClosedStatementIsReused() throws Exception {
+        long misses = pool.getStatementCacheMisses();
+        try (Connection conn = pool.getConnection()) {
+            try (PreparedStatement ps = conn.prepareStatement(SQL)) {
+                assertEquals(1, query(ps, 1));
+            }
+            long hits = pool.getStatementCacheHits();
+            try (PreparedStatement ps = conn.prepareStatement(SQL)) {
+                // parameters were cleared when it was given back
+                assertEquals(2, query(ps, 2));
+            }
+            assertEquals(hits + 1, pool.getStatementCacheHits());
+        }
+        assertEquals(misses + 1, pool.getStatementCacheMisses());
+        assertEquals(2, slowLog.getRecordedCount());
+    }
+
+    @Test
+    public void testNestedUseOfTheSameSqlIsStillTracked() throws Exception {
+        try (Connection conn = pool.getConnection()) {
+            PreparedStatement outer = conn.prepareStatement(SQL);
+            PreparedStatement inner = conn.prepareStatement(SQL);
+            assertNotSame(outer, inner);
+            // a raw driver statement would give the physical connection here
+            assertSame(conn, inner.getConnection());
+
+            assertEquals(2, query(inner, 2));
+            assertEquals(1, slowLog.getRecordedCount());
+            assertEquals("[2]", slowLog.recent().get(0).parameters().toString());
+
+            inner.close();
+            assertTrue(inner.isClosed());
+            // the cached one is untouched by the extra one closing
+            assertEquals(1, query(outer, 1));
+            assertEquals(2, slowLog.getRecordedCount());
+            outer.close();
+
+            // and it is still the one handed out next
+            long hits = pool.getStatementCacheHits();
+            try (PreparedStatement again = conn.prepareStatement(SQL)) {
+                assertEquals(1, query(again, 1));
+            }
+            assertEquals(hits + 1, pool.getStatementCacheHits());
+        }
+    }
+}
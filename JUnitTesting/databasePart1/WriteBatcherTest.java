@@ -0,0 +1,167 @@
+package databasePart1;
+
+import static org.junit.Assert.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for the group-commit writer against a throwaway H2 file.
+ */
+public class WriteBatcherTest {
+
+    private Path dir;
+    private ConnectionPool pool;
+    private WriteBatcher batcher;
+
+    @Before
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("cse360-batcher");
+        pool = new ConnectionPool("jdbc:h2:file:" + dir.resolve("db"), "sa", "", 4);
+        try (Connection conn = pool.getConnection(); Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE QUESTIONS (QID INT AUTO_INCREMENT PRIMARY KEY, USERNAME VARCHAR(255), " +
+                    "TITLE VARCHAR(255), BODY VARCHAR(1000), ANSWER_COUNT INT DEFAULT 0 NOT NULL)");
+            stmt.execute("CREATE TABLE ANSWERS (AID INT AUTO_INCREMENT PRIMARY KEY, " +
+                    "QID INT REFERENCES QUESTIONS (QID), USERNAME VARCHAR(255), BODY VARCHAR(1000))");
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (batcher != null) batcher.close();
+        pool.close();
+        TempDirs.deleteTree(dir);
+    }
+
+    private static WriteBatcher.CommitListener quiet() {
+        return new WriteBatcher.CommitListener() {
+            @Override
+            public void questionCommitted(int qid, String title, String body) { }
+
+            @Override
+            public void batchCommitted(Set<Integer> qids) { }
+        };
+    }
+
+    private int count(String sql) throws Exception {
+        try (Connection conn = pool.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    @Test
+    public void testQueuedWritesShareOneBatchAndGetTheirIds() throws Exception {
+        // a long window so everything below lands in one group commit
+        batcher = new WriteBatcher(pool, quiet(), 256, 200);
+        List<CompletableFuture<Integer>> questions = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            questions.add(batcher.submitQuestion("alex", "title " + i, "body " + i));
+        }
+        int first = questions.get(0).get(5, TimeUnit.SECONDS);
+        for (int i = 0; i < 20; i++) {
+            assertEquals(first + i, (int) questions.get(i).get(5, TimeUnit.SECONDS));
+        }
+
+        List<CompletableFuture<Integer>> answers = new ArrayList<>();
+        for (int i = 0; i < 3; i++) answers.add(batcher.submitAnswer(first, "bob", "answer " + i));
+        answers.add(batcher.submitAnswer(first + 1, "bob", "other"));
+        for (CompletableFuture<Integer> f : answers) assertTrue(f.get(5, TimeUnit.SECONDS) > 0);
+
+        assertEquals(20, count("SELECT COUNT(*) FROM QUESTIONS"));
+        assertEquals(4, count("SELECT COUNT(*) FROM ANSWERS"));
+        // the counters move in the same transaction as the answers
+        assertEquals(3, count("SELECT ANSWER_COUNT FROM QUESTIONS WHERE QID = " + first));
+        assertEquals(1, count("SELECT ANSWER_COUNT FROM QUESTIONS WHERE QID = " + (first + 1)));
+    }
+
+    @Test
+    public void testThrowingListenerDoesNotFailSavedRows() throws Exception {
+        batcher = new WriteBatcher(pool, new WriteBatcher.CommitListener() {
+            @Override
+            public void questionCommitted(int qid, String title, String body) {
+                throw new IllegalStateException("index is broken");
+            }
+
+            @Override
+            public void batchCommitted(Set<Integer> qids) {
+                throw new IllegalStateException("listener is broken");
+            }
+        }, 256, 2);
+
+        int qid = batcher.submitQuestion("alex", "title", "body").get(5, TimeUnit.SECONDS);
+        assertTrue(qid > 0);
+        assertEquals(1, count("SELECT COUNT(*) FROM QUESTIONS"));
+        // the writer thread is still alive
+        assertTrue(batcher.submitAnswer(qid, "bob", "answer").get(5, TimeUnit.SECONDS) > 0);
+    }
+
+    @Test
+    public void testBadRowFailsAloneInItsBatch() throws Exception {
+        batcher = new WriteBatcher(pool, quiet(), 256, 200);
+        int qid = batcher.submitQuestion("alex", "title", "body").get(5, TimeUnit.SECONDS);
+
+        CompletableFuture<Integer> good = batcher.submitAnswer(qid, "bob", "fine");
+        CompletableFuture<Integer> bad = batcher.submitAnswer(999_999, "bob", "no such question");
+        assertTrue(good.get(5, TimeUnit.SECONDS) > 0);
+        try {
+            bad.get(5, TimeUnit.SECONDS);
+            fail("an answer to a missing question should fail");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof java.sql.SQLException);
+        }
+        assertEquals(1, count("SELECT COUNT(*) FROM ANSWERS"));
+        assertEquals(1, count("SELECT ANSWER_COUNT FROM QUESTIONS WHERE QID = " + qid));
+    }
+
+    @Test
+    public void testSubmitsRacingCloseAllFinish() throws Exception {
+        batcher = new WriteBatcher(pool, quiet(), 256, 2);
+        List<CompletableFuture<Integer>> futures = Collections.synchronizedList(new ArrayList<>());
+        List<Thread> posters = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            posters.add(new Thread(() -> {
+                for (int i = 0; i < 500; i++) futures.add(batcher.submitQuestion("alex", "title", "body"));
+            }));
+        }
+        for (Thread t : posters) t.start();
+        Thread.sleep(5);
+        batcher.close();
+        for (Thread t : posters) t.join();
+
+        // every future is either written or failed, none is left waiting
+        int written = 0;
+        for (CompletableFuture<Integer> f : futures) {
+            try {
+                f.get(5, TimeUnit.SECONDS);
+                written++;
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof java.sql.SQLException);
+            }
+        }
+        assertEquals(written, count("SELECT COUNT(*) FROM QUESTIONS"));
+    }
+
+    @Test
+    public void testSubmitAfterCloseFails() throws Exception {
+        batcher = new WriteBatcher(pool, quiet(), 256, 2);
+        batcher.close();
+        assertTrue(batcher.submitQuestion("alex", "late", "body").isCompletedExceptionally());
+    }
+}
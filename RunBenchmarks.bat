@@ -0,0 +1,63 @@
+@echo off
+title Team Project 2 Benchmarks
+color 0B
+
+echo.
+echo Running the database benchmarks (JMH), this takes a while
+echo any extra arguments go straight to jmh, e.g. RunBenchmarks.bat -p questions=1000 -t 4
+echo or run the load test instead, options in quotes: RunBenchmarks.bat load "--stages=100x30s,1000x30s"
+
+if not exist lib mkdir lib
+if not exist bin-bench mkdir bin-bench
+
+REM same h2 jar the app uses
+if not exist "lib\h2-2.2.224.jar" (
+    echo [Downloading H2 Database...]
+    powershell -Command "Invoke-WebRequest -Uri https://repo1.maven.org/maven2/com/h2database/h2/2.2.224/h2-2.2.224.jar -OutFile 'lib\h2-2.2.224.jar'"
+)
+
+REM jmh itself plus the two libraries it needs, all straight from maven
+if not exist "lib\jmh-core-1.37.jar" (
+    echo [Downloading JMH...]
+    powershell -Command "Invoke-WebRequest -Uri https://repo1.maven.org/maven2/org/openjdk/jmh/jmh-core/1.37/jmh-core-1.37.jar -OutFile 'lib\jmh-core-1.37.jar'"
+    powershell -Command "Invoke-WebRequest -Uri https://repo1.maven.org/maven2/org/openjdk/jmh/jmh-generator-annprocess/1.37/jmh-generator-annprocess-1.37.jar -OutFile 'lib\jmh-generator-annprocess-1.37.jar'"
+    powershell -Command "Invoke-WebRequest -Uri https://repo1.maven.org/maven2/net/sf/jopt-simple/jopt-simple/5.0.4/jopt-simple-5.0.4.jar -OutFile 'lib\jopt-simple-5.0.4.jar'"
+    powershell -Command "Invoke-WebRequest -Uri https://repo1.maven.org/maven2/org/apache/commons/commons-math3/3.6.1/commons-math3-3.6.1.jar -OutFile 'lib\commons-math3-3.6.1.jar'"
+)
+
+set BENCH_CP=lib\h2-2.2.224.jar;lib\jmh-core-1.37.jar;lib\jmh-generator-annprocess-1.37.jar;lib\jopt-simple-5.0.4.jar;lib\commons-math3-3.6.1.jar
+
+echo.
+echo === Compiling Benchmarks ===
+
+REM only the database layer and the question classes the load test drives, so no javafx here
+del bench-sources.txt 2>nul
+for /r src\databasePart1 %%f in (*.java) do echo %%f >> bench-sources.txt
+for /r Benchmarks %%f in (*.java) do echo %%f >> bench-sources.txt
+echo src\application\QuestionManager.java >> bench-sources.txt
+echo src\application\Question.java >> bench-sources.txt
+echo src\application\Answer.java >> bench-sources.txt
+
+REM -proc:full because newer jdks no longer run the jmh annotation processor on their own
+javac -proc:full -d bin-bench -cp "%BENCH_CP%" @bench-sources.txt
+if %errorlevel% neq 0 (
+    echo.
+    echo [!] Compilation failed. Check your code or imports.
+    pause
+    exit /b
+)
+del bench-sources.txt
+
+echo.
+if /i "%~1"=="load" (
+    echo === Running Load Test ===
+    java -cp "bin-bench;%BENCH_CP%" application.WorkloadSimulator %2 %3 %4 %5 %6 %7 %8 %9
+) else (
+    echo === Running Benchmarks ===
+    REM results end up in benchmark-results.json next to this file
+    java -cp "bin-bench;%BENCH_CP%" databasePart1.DatabaseHelperBenchmark %*
+)
+
+echo.
+echo [Benchmarks Finished]
+pause
@@ -1,5 +1,8 @@
 package application;
 
+import javafx.application.Platform;
+import javafx.beans.InvalidationListener;
+import javafx.beans.Observable;
 import javafx.beans.property.ReadOnlyStringWrapper;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -8,13 +11,19 @@ import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
+import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 import databasePart1.DatabaseHelper;
+import databasePart1.Role;
+import databasePart1.SlowQueryLog;
+import databasePart1.UserRow;
 
-import java.sql.Connection;
-import java.sql.DriverManager;
-import java.sql.PreparedStatement;   // ✅ added missing imports
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
 import java.util.List;
+import java.util.function.Supplier;
 
 /**
  * Admin page where admins can:
@@ -26,9 +35,19 @@ import java.util.List;
  */
 public class AdminHomePage {
 
+    // the admin table only ever holds one page of users
+    private static final int PAGE_SIZE = 50;
+    // a large class list takes longer than the usual async timeout
+    private static final Duration IMPORT_TIMEOUT = Duration.ofMinutes(10);
+
     private DatabaseHelper db;
-    private TableView<String[]> table;
-    private ObservableList<String[]> rows;
+    private TableView<UserRow> table;
+    private ObservableList<UserRow> rows;
+    private TextField txtFilter;
+    private ComboBox<DatabaseHelper.UserSort> cmbSort;
+    private CheckBox chkDescending;
+    private Label pageLabel;
+    private int page = 0;
 
     public AdminHomePage(DatabaseHelper db) {
         this.db = db;
@@ -50,20 +69,53 @@ public class AdminHomePage {
         table = new TableView<>();
         table.setPrefHeight(260);
 
-        TableColumn<String[], String> colUser = new TableColumn<>("Username");
-        colUser.setCellValueFactory(c -> new ReadOnlyStringWrapper(c.getValue()[0]));
-        TableColumn<String[], String> colName = new TableColumn<>("Name");
-        colName.setCellValueFactory(c -> new ReadOnlyStringWrapper(c.getValue()[1]));
-        TableColumn<String[], String> colEmail = new TableColumn<>("Email");
-        colEmail.setCellValueFactory(c -> new ReadOnlyStringWrapper(c.getValue()[2]));
-        TableColumn<String[], String> colRoles = new TableColumn<>("Roles");
-        colRoles.setCellValueFactory(c -> new ReadOnlyStringWrapper(c.getValue()[3]));
+        TableColumn<UserRow, String> colUser = new TableColumn<>("Username");
+        colUser.setCellValueFactory(c -> new ReadOnlyStringWrapper(c.getValue().username()));
+        TableColumn<UserRow, String> colName = new TableColumn<>("Name");
+        colName.setCellValueFactory(c -> new ReadOnlyStringWrapper(c.getValue().name()));
+        TableColumn<UserRow, String> colEmail = new TableColumn<>("Email");
+        colEmail.setCellValueFactory(c -> new ReadOnlyStringWrapper(c.getValue().email()));
+        TableColumn<UserRow, String> colRoles = new TableColumn<>("Roles");
+        colRoles.setCellValueFactory(c -> new ReadOnlyStringWrapper(c.getValue().roles()));
 
         table.getColumns().addAll(colUser, colName, colEmail, colRoles);
 
         Button btnRefresh = new Button("Refresh Users");
         btnRefresh.setOnAction(e -> loadUsers());
 
+        // filtering, sorting and paging all happen in the database
+        txtFilter = new TextField();
+        txtFilter.setPromptText("filter by username or email");
+        txtFilter.setOnAction(e -> {
+            page = 0;
+            loadUsers();
+        });
+        cmbSort = new ComboBox<>(FXCollections.observableArrayList(DatabaseHelper.UserSort.values()));
+        cmbSort.setValue(DatabaseHelper.UserSort.USERNAME);
+        cmbSort.setOnAction(e -> {
+            page = 0;
+            loadUsers();
+        });
+        chkDescending = new CheckBox("Descending");
+        chkDescending.setOnAction(e -> {
+            page = 0;
+            loadUsers();
+        });
+        Button btnPrev = new Button("< Prev");
+        btnPrev.setOnAction(e -> {
+            if (page > 0) {
+                page--;
+                loadUsers();
+            }
+        });
+        Button btnNext = new Button("Next >");
+        btnNext.setOnAction(e -> {
+            page++;
+            loadUsers();
+        });
+        pageLabel = new Label();
+        HBox pagerBox = new HBox(8, txtFilter, new Label("Sort:"), cmbSort, chkDescending, btnPrev, pageLabel, btnNext, btnRefresh);
+
         // role controls
         TextField txtUser = new TextField();
         txtUser.setPromptText("username");
@@ -80,13 +132,7 @@ public class AdminHomePage {
                 roleMsg.setText("Enter username and role");
                 return;
             }
-            boolean ok = addRole(uname, role);
-            if (ok) {
-                roleMsg.setText("Role added.");
-                loadUsers();
-            } else {
-                roleMsg.setText("Could not add role.");
-            }
+            runAndReport(roleMsg, () -> addRole(uname, role) ? "Role added." : "Could not add role.");
         });
 
         btnRemoveRole.setOnAction(e -> {
@@ -96,17 +142,12 @@ public class AdminHomePage {
                 roleMsg.setText("Enter username and role");
                 return;
             }
-            if (role.equalsIgnoreCase("admin") && isAdmin(uname) && countAdmins() <= 1) {
-                roleMsg.setText("At least one admin must remain.");
-                return;
-            }
-            boolean ok = removeRole(uname, role);
-            if (ok) {
-                roleMsg.setText("Role removed.");
-                loadUsers();
-            } else {
-                roleMsg.setText("Could not remove role.");
-            }
+            runAndReport(roleMsg, () -> {
+                if (role.equalsIgnoreCase("admin") && isAdmin(uname) && countAdmins() <= 1) {
+                    return "At least one admin must remain.";
+                }
+                return removeRole(uname, role) ? "Role removed." : "Could not remove role.";
+            });
         });
 
         HBox roleBox = new HBox(8, txtUser, txtRole, btnAddRole, btnRemoveRole);
@@ -130,17 +171,12 @@ public class AdminHomePage {
                 delMsg.setText("Type YES to confirm.");
                 return;
             }
-            if (isAdmin(uname) && countAdmins() <= 1) {
-                delMsg.setText("Cannot delete last admin.");
-                return;
-            }
-            boolean ok = deleteUser(uname);
-            if (ok) {
-                delMsg.setText("User deleted.");
-                loadUsers();
-            } else {
-                delMsg.setText("Delete failed.");
-            }
+            runAndReport(delMsg, () -> {
+                if (isAdmin(uname) && countAdmins() <= 1) {
+                    return "Cannot delete last admin.";
+                }
+                return deleteUser(uname) ? "User deleted." : "Delete failed.";
+            });
         });
 
         HBox delBox = new HBox(8, txtDelUser, txtConfirm, btnDelete);
@@ -149,10 +185,109 @@ public class AdminHomePage {
         Button btnCode = new Button("Generate Code");
         Label codeMsg = new Label();
         btnCode.setOnAction(e -> {
-            String code = db.generateInvitationCode();
-            codeMsg.setText(code != null ? "New code: " + code : "Could not generate code");
+            db.async().generateInvitationCode().whenCompleteAsync((code, err) ->
+                    codeMsg.setText(err == null && code != null ? "New code: " + code : "Could not generate code"),
+                    Platform::runLater);
         });
 
+        // a batch of codes for a whole class, listed one per line so they can be copied out
+        TextField txtCodeCount = new TextField("30");
+        txtCodeCount.setPrefColumnCount(5);
+        Button btnCodes = new Button("Generate Batch");
+        TextArea codesArea = new TextArea();
+        codesArea.setEditable(false);
+        codesArea.setPrefRowCount(4);
+        btnCodes.setOnAction(e -> {
+            int count;
+            try {
+                count = Integer.parseInt(txtCodeCount.getText().trim());
+            } catch (NumberFormatException ex) {
+                codeMsg.setText("Enter how many codes to make.");
+                return;
+            }
+            if (count < 1 || count > 10_000) {
+                codeMsg.setText("Make between 1 and 10000 codes at a time.");
+                return;
+            }
+            db.async().generateInvitationCodes(count).whenCompleteAsync((codes, err) -> {
+                if (err != null || codes.isEmpty()) {
+                    codeMsg.setText("Could not generate codes");
+                    return;
+                }
+                codeMsg.setText(codes.size() + " new codes:");
+                codesArea.setText(String.join("\n", codes));
+            }, Platform::runLater);
+        });
+        HBox codeBox = new HBox(8, btnCode, txtCodeCount, btnCodes);
+
+        // bulk import from a csv file: username,password,email[,role]
+        Button btnImport = new Button("Import Users (CSV)");
+        Label importMsg = new Label();
+        btnImport.setOnAction(e -> {
+            FileChooser chooser = new FileChooser();
+            chooser.setTitle("Import users");
+            chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV files", "*.csv"));
+            File file = chooser.showOpenDialog(stage);
+            if (file == null) return;
+            btnImport.setDisable(true);
+            importMsg.setText("Importing " + file.getName() + "...");
+            db.async().supply(() -> {
+                try {
+                    return new BulkUserImporter(db).importCsv(file.toPath());
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            }, IMPORT_TIMEOUT).whenCompleteAsync((report, err) -> {
+                btnImport.setDisable(false);
+                if (err != null) {
+                    importMsg.setText("Import failed: " + err.getMessage());
+                    return;
+                }
+                StringBuilder text = new StringBuilder(report.summary());
+                // the first few problems, the rest go to the console
+                int shown = 0;
+                for (BulkUserImporter.RowError row : report.errors()) {
+                    if (shown++ < 5) {
+                        text.append("\nline ").append(row.line()).append(" (").append(row.username()).append("): ").append(row.message());
+                    }
+                    System.out.println("Import line " + row.line() + " (" + row.username() + "): " + row.message());
+                }
+                importMsg.setText(text.toString());
+                loadUsers();
+            }, Platform::runLater);
+        });
+
+        // recent slow statements with their plans, newest first
+        SlowQueryLog slowLog = db.getSlowQueryLog();
+        TextField txtSlowMs = new TextField(slowLog == null ? "" : String.valueOf(slowLog.getThresholdMillis()));
+        txtSlowMs.setPrefColumnCount(5);
+        Button btnSlow = new Button("Show Slow Queries");
+        Label slowMsg = new Label();
+        TextArea slowArea = new TextArea();
+        slowArea.setEditable(false);
+        slowArea.setPrefRowCount(8);
+        btnSlow.setOnAction(e -> {
+            if (slowLog == null) {
+                slowMsg.setText("Slow query log is not available.");
+                return;
+            }
+            try {
+                slowLog.setThresholdMillis(Long.parseLong(txtSlowMs.getText().trim()));
+            } catch (NumberFormatException ex) {
+                slowMsg.setText("Threshold must be a number of milliseconds.");
+                return;
+            }
+            List<SlowQueryLog.SlowQuery> recent = slowLog.recent();
+            StringBuilder text = new StringBuilder();
+            for (SlowQueryLog.SlowQuery q : recent) {
+                text.append(q.format()).append('\n');
+            }
+            slowArea.setText(text.toString());
+            slowMsg.setText(recent.size() + " slow queries over " + slowLog.getThresholdMillis()
+                    + " ms, full log in " + slowLog.getFile());
+        });
+        HBox slowBox = new HBox(8, new Label("Threshold (ms):"), txtSlowMs, btnSlow);
+
         //  Q&A Portal button on the ui
         Button btnQnA = new Button("Open Q&A Portal");
         btnQnA.setStyle("-fx-font-weight: bold; -fx-background-color: #0078D7; -fx-text-fill: white;");
@@ -162,53 +297,87 @@ public class AdminHomePage {
         });
 
         // put everything together
-        VBox cardUsers = new VBox(8, new Label("Users:"), table, btnRefresh);
+        VBox cardUsers = new VBox(8, new Label("Users:"), table, pagerBox);
         VBox cardRoles = new VBox(6, new Label("Change role:"), roleBox, roleMsg);
         VBox cardDelete = new VBox(6, new Label("Delete user (YES to confirm):"), delBox, delMsg);
-        VBox cardInvites = new VBox(6, new Label("Invitation codes:"), btnCode, codeMsg);
+        VBox cardInvites = new VBox(6, new Label("Invitation codes:"), codeBox, codeMsg, codesArea);
+        VBox cardImport = new VBox(6, new Label("Bulk import:"), btnImport, importMsg);
+        VBox cardSlow = new VBox(6, new Label("Slow queries:"), slowBox, slowMsg, slowArea);
         VBox cardQnA = new VBox(10, new Label("Q&A Portal:"), btnQnA);
 
-        root.getChildren().addAll(header, cardUsers, cardRoles, cardDelete, cardInvites, cardQnA);
+        root.getChildren().addAll(header, cardUsers, cardRoles, cardDelete, cardInvites, cardImport, cardSlow, cardQnA);
 
         // load users when window opens
         loadUsers();
 
-        stage.setScene(new Scene(root, 860, 700));
+        // the cards no longer fit on small screens, so the page scrolls
+        ScrollPane scroll = new ScrollPane(root);
+        scroll.setFitToWidth(true);
+
+        // live charts next to the admin tools, sampling stops once another page takes the stage
+        MetricsDashboard dashboard = new MetricsDashboard(db);
+        Tab tabAdmin = new Tab("Admin", scroll);
+        Tab tabMetrics = new Tab("Metrics", dashboard.getView());
+        TabPane tabs = new TabPane(tabAdmin, tabMetrics);
+        tabs.setTabClosingPolicy(TabPane.TabClosingPolicy.UNAVAILABLE);
+
+        Scene scene = new Scene(tabs, 960, 720);
+        stage.sceneProperty().addListener(new InvalidationListener() {
+            @Override
+            public void invalidated(Observable o) {
+                if (stage.getScene() != scene) {
+                    dashboard.stop();
+                    stage.sceneProperty().removeListener(this);
+                }
+            }
+        });
+        stage.setScene(scene);
         stage.setTitle("Admin");
+        dashboard.start();
     }
 
-    // load all users for table
+    // one page of the table plus what the pager needs to describe it
+    private record UserPage(List<UserRow> rows, int total, int page, int pages) { }
+
+    // load the current page of users for table, the queries run off the fx thread
     private void loadUsers() {
-        try {
-            List<String[]> list = db.getAllUsers();
-            rows = FXCollections.observableArrayList(list);
+        String filter = txtFilter.getText();
+        DatabaseHelper.UserSort sort = cmbSort.getValue();
+        boolean ascending = !chkDescending.isSelected();
+        int requested = page;
+
+        db.async().supply(() -> {
+            int total = db.countUsers(filter);
+            int pages = Math.max(1, (total + PAGE_SIZE - 1) / PAGE_SIZE);
+            int p = Math.min(requested, pages - 1);
+            return new UserPage(db.getUserPage(filter, sort, ascending, p * PAGE_SIZE, PAGE_SIZE), total, p, pages);
+        }).whenCompleteAsync((result, err) -> {
+            if (err != null) {
+                err.printStackTrace();
+                return;
+            }
+            page = result.page();
+            rows = FXCollections.observableArrayList(result.rows());
             table.setItems(rows);
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+            pageLabel.setText("Page " + (result.page() + 1) + " of " + result.pages() + " (" + result.total() + " users)");
+        }, Platform::runLater);
+    }
+
+    // runs an admin action off the fx thread, shows its message and reloads the table
+    private void runAndReport(Label msg, Supplier<String> action) {
+        db.async().supply(action).whenCompleteAsync((text, err) -> {
+            msg.setText(err != null ? "Failed: " + err.getMessage() : text);
+            loadUsers();
+        }, Platform::runLater);
     }
 
     // helper methods
     private boolean addRole(String u, String r) {
-        try {
-            db.addRole(u, r);
-            return true;
-        } catch (Exception e) {
-            return false;
-        }
+        return db.addRole(u, r);
     }
 
     private boolean removeRole(String u, String r) {
-        // this fixes the imports for the missing sql classes we use for roles
-        try (Connection conn = DriverManager.getConnection("jdbc:h2:file:C:/Users/aibrahim/cse360db", "sa", "Password");
-             PreparedStatement ps = conn.prepareStatement("DELETE FROM ROLES WHERE USERNAME = ? AND ROLE = ?")) {
-            ps.setString(1, u);
-            ps.setString(2, r);
-            ps.executeUpdate();
-            return true;
-        } catch (Exception e) {
-            return false;
-        }
+        return db.removeRole(u, r);
     }
 
     private boolean deleteUser(String u) {
@@ -216,17 +385,12 @@ public class AdminHomePage {
         return true;
     }
 
+    // ROLE_BITS, the same test countAdmins counts with
     private boolean isAdmin(String u) {
-        List<String> roles = db.getUserRoles(u);
-        return roles.contains("admin");
+        return (db.getRoleMask(u) & Role.ADMIN.bit()) != 0;
     }
 
     private int countAdmins() {
-        int count = 0;
-        List<String[]> users = db.getAllUsers();
-        for (String[] u : users) {
-            if (u[3].toLowerCase().contains("admin")) count++;
-        }
-        return count;
+        return db.countUsersWithRole("admin");
     }
 }
@@ -83,9 +83,8 @@ public class AdminSetupPage {
             
 
             // try to add the new admin user
-            boolean ok = db.register(u, p, em);
+            boolean ok = db.register(u, p, em) && db.addRole(u, "admin");
             if (ok) {
-                db.addRole(u, "admin");
                 lblStatus.setText("Admin created. Please login again.");
                 SetupLoginSelectionPage next = new SetupLoginSelectionPage(db);
                 next.show(stage);
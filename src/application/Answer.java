@@ -1,17 +1,26 @@
 package application;
 
 public class Answer {
+    private int id; // AID in the database, -1 until saved
     private String text;
     private String author;
     private boolean accepted;
 
     public Answer(String text, String author) {
+        this(-1, text, author);
+    }
+
+    public Answer(int id, String text, String author) {
+        this.id = id;
         this.text = text;
         this.author = author;
         this.accepted = false;
     }
 
     // getters and setters
+    public int getId() { return id; }
+    public void setId(int id) { this.id = id; }
+
     public String getText() { return text; }
     public void setText(String text) { this.text = text; }
 
@@ -1,7 +1,9 @@
 package application;
 
 import application.privileges.Privileges;
+import databasePart1.AnswerRow;
 import databasePart1.DatabaseHelper;
+import javafx.application.Platform;
 import javafx.geometry.Insets;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
@@ -20,6 +22,8 @@ public class AnswerPage {
     private final int questionId;
     private final String questionTitle;
     private final String username;
+    // read off the fx thread in show(), null until it arrives. fx thread only
+    private Privileges privileges;
 
     public AnswerPage(DatabaseHelper db, int qid, String title, String username) {
         this.db = db;
@@ -36,8 +40,29 @@ public class AnswerPage {
         Label lblTitle = new Label("Question: " + questionTitle);
         lblTitle.setStyle("-fx-font-weight: bold; -fx-font-size: 14;");
 
-        ListView<String> replyList = new ListView<>();
+        // the list only had the title, the body is read now (usually from the body cache)
+        TextArea bodyArea = new TextArea("Loading...");
+        bodyArea.setEditable(false);
+        bodyArea.setWrapText(true);
+        bodyArea.setPrefRowCount(4);
+        db.async().supply(() -> db.getQuestionBody(questionId)).whenCompleteAsync((body, err) ->
+                bodyArea.setText(err != null ? "Could not load the question." : body == null ? "This question was deleted." : body),
+                Platform::runLater);
+
+        ListView<Answer> replyList = new ListView<>();
         replyList.setPrefHeight(250);
+        replyList.setCellFactory(lv -> new ListCell<>() {
+            @Override
+            protected void updateItem(Answer a, boolean empty) {
+                super.updateItem(a, empty);
+                if (empty || a == null) {
+                    setText(null);
+                } else {
+                    String accepted = a.isAccepted() ? " * (Accepted)" : "";
+                    setText("[" + a.getId() + "] " + a.getText() + " — by " + a.getAuthor() + accepted);
+                }
+            }
+        });
 
         TextArea replyField = new TextArea();
         replyField.setPromptText("Write your reply here...");
@@ -50,20 +75,27 @@ public class AnswerPage {
         Label status = new Label();
 
         // this ensures that the privledges file is checked upon entry
-        Privileges privileges = new Privileges(db, username);
-        boolean isAdmin = privileges.isAdmin();
-        boolean isStaff = privileges.isStaff();
-
-        // visible only for Admin/Staff
-        acceptBtn.setVisible(isAdmin || isStaff);
-
+        // visible only for Admin/Staff, shown once the roles have loaded off the fx thread
+        acceptBtn.setVisible(false);
+        db.async().supply(() -> new Privileges(db, username)).thenAcceptAsync(p -> {
+            privileges = p;
+            acceptBtn.setVisible(p.isAdmin() || p.isStaff());
+        }, Platform::runLater);
+
+        // replies load off the fx thread and are put in the list once they arrive
         Runnable loadReplies = () -> {
-            replyList.getItems().clear();
-            List<String[]> replies = db.getAnswers(questionId);
-            for (String[] a : replies) {
-                String accepted = a[3].equalsIgnoreCase("TRUE") ? " * (Accepted)" : "";
-                replyList.getItems().add("[" + a[0] + "] " + a[2] + " — by " + a[1] + accepted);
-            }
+            db.async().getAnswers(questionId).whenCompleteAsync((replies, err) -> {
+                if (err != null) {
+                    status.setText("Could not load replies: " + err.getMessage());
+                    return;
+                }
+                replyList.getItems().clear();
+                for (AnswerRow a : replies) {
+                    Answer answer = new Answer(a.aid(), a.body(), a.username());
+                    answer.setAccepted(a.accepted());
+                    replyList.getItems().add(answer);
+                }
+            }, Platform::runLater);
         };
         loadReplies.run();
 
@@ -74,14 +106,17 @@ public class AnswerPage {
                 status.setText("Please write something.");
                 return;
             }
-            boolean ok = db.addAnswer(questionId, username, text);
-            if (ok) {
-                status.setText("Reply added.");
-                replyField.clear();
-                loadReplies.run();
-            } else {
-                status.setText("Failed to add reply.");
-            }
+            postBtn.setDisable(true);
+            db.async().addAnswer(questionId, username, text).whenCompleteAsync((ok, err) -> {
+                postBtn.setDisable(false);
+                if (err == null && ok) {
+                    replyField.clear();
+                    loadReplies.run();
+                    status.setText("Reply added.");
+                } else {
+                    status.setText("Failed to add reply.");
+                }
+            }, Platform::runLater);
         });
 
         // our refresh batch button option
@@ -89,26 +124,25 @@ public class AnswerPage {
 
         // deleting the selected option
         deleteBtn.setOnAction(e -> {
-            int index = replyList.getSelectionModel().getSelectedIndex();
-            if (index == -1) {
+            Answer chosen = replyList.getSelectionModel().getSelectedItem();
+            if (chosen == null) {
                 showAlert("Select a reply to delete first.");
                 return;
             }
 
-            List<String[]> replies = db.getAnswers(questionId);
-            String[] chosen = replies.get(index);
-            int aid = Integer.parseInt(chosen[0]);
-            String author = chosen[1];
+            int aid = chosen.getId();
+            String author = chosen.getAuthor();
 
             // this is where the logic for user specifics sit
-            if (author.equalsIgnoreCase(username) || isAdmin || isStaff) {
-                boolean ok = db.deleteAnswer(aid);
-                if (ok) {
-                    showAlert("Reply deleted successfully.");
-                    loadReplies.run();
-                } else {
-                    showAlert("Failed to delete reply.");
-                }
+            if (author.equalsIgnoreCase(username) || isAdminOrStaff()) {
+                db.async().deleteAnswer(aid).whenCompleteAsync((ok, err) -> {
+                    if (err == null && ok) {
+                        showAlert("Reply deleted successfully.");
+                        loadReplies.run();
+                    } else {
+                        showAlert("Failed to delete reply.");
+                    }
+                }, Platform::runLater);
             } else {
                 showAlert("You don't have permission to delete this reply.");
             }
@@ -116,33 +150,35 @@ public class AnswerPage {
 
         //accept
         acceptBtn.setOnAction(e -> {
-            int index = replyList.getSelectionModel().getSelectedIndex();
-            if (index == -1) {
+            Answer chosen = replyList.getSelectionModel().getSelectedItem();
+            if (chosen == null) {
                 showAlert("Select a reply first to mark accepted.");
                 return;
             }
-            List<String[]> replies = db.getAnswers(questionId);
-            String[] chosen = replies.get(index);
-            int aid = Integer.parseInt(chosen[0]);
-
-            boolean ok = db.markAnswerAccepted(aid);
-            if (ok) {
-                showAlert("Marked as accepted answer!");
-                loadReplies.run();
-            } else {
-                showAlert("Failed to mark answer.");
-            }
+
+            db.async().markAnswerAccepted(chosen.getId()).whenCompleteAsync((ok, err) -> {
+                if (err == null && ok) {
+                    showAlert("Marked as accepted answer!");
+                    loadReplies.run();
+                } else {
+                    showAlert("Failed to mark answer.");
+                }
+            }, Platform::runLater);
         });
 
         // our layout
         HBox buttons = new HBox(10, postBtn, refreshBtn, deleteBtn, acceptBtn);
-        root.getChildren().addAll(lblTitle, new Label("Replies:"), replyList, buttons, replyField, status);
+        root.getChildren().addAll(lblTitle, bodyArea, new Label("Replies:"), replyList, buttons, replyField, status);
 
         stage.setTitle("Replies for: " + questionTitle);
         stage.setScene(new Scene(root, 600, 500));
         stage.show();
     }
 
+    private boolean isAdminOrStaff() {
+        return privileges != null && (privileges.isAdmin() || privileges.isStaff());
+    }
+
     private void showAlert(String msg) {
         Alert a = new Alert(Alert.AlertType.INFORMATION);
         a.setTitle("Info");
@@ -0,0 +1,194 @@
+package application;
+
+import databasePart1.DatabaseHelper;
+import databasePart1.NewUser;
+import databasePart1.Role;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+/**
+ * Creates many accounts at once from a csv file, for onboarding a whole class.
+ * Each line is: username,password,email[,role]. The role defaults to student, and a
+ * first line starting with "username" is taken as a header. Fields may be quoted, with ""
+ * for a quote inside a field, but a field cannot span lines.
+ *
+ * The file is read in chunks. The rows of a chunk are checked in parallel on the fork-join
+ * pool with the same rules as SetupAccountPage, then sent to DatabaseHelper.registerAll.
+ * No invitation code is needed because an admin runs the import.
+ */
+public class BulkUserImporter {
+
+    // rows read, checked and inserted together
+    private static final int CHUNK_ROWS = 5_000;
+    private static final String DEFAULT_ROLE = "student";
+
+    // why one line of the file was not imported
+    public record RowError(int line, String username, String message) { }
+
+    public record Report(int rows, int imported, List<RowError> errors, long elapsedNanos) {
+
+        public double rowsPerSecond() {
+            return elapsedNanos == 0 ? 0 : rows * 1e9 / elapsedNanos;
+        }
+
+        public String summary() {
+            return String.format("Imported %d of %d rows in %.2f s (%.0f rows/s), %d errors",
+                    imported, rows, elapsedNanos / 1e9, rowsPerSecond(), errors.size());
+        }
+    }
+
+    // a line that passed the checks, or the reason it did not
+    private record Checked(int line, NewUser user, String username, String error) { }
+
+    private final DatabaseHelper db;
+
+    public BulkUserImporter(DatabaseHelper db) {
+        this.db = db;
+    }
+
+    public Report importCsv(Path file) throws IOException {
+        try (BufferedReader in = Files.newBufferedReader(file)) {
+            return importCsv(in);
+        }
+    }
+
+    public Report importCsv(BufferedReader in) throws IOException {
+        long start = System.nanoTime();
+        List<RowError> errors = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        List<String> lines = new ArrayList<>(CHUNK_ROWS);
+        int firstLine = 1;
+        int lineNo = 0;
+        int rows = 0;
+        int imported = 0;
+
+        String line;
+        while ((line = in.readLine()) != null) {
+            lineNo++;
+            if (lineNo == 1 && line.trim().toLowerCase().startsWith("username")) {
+                firstLine = 2;
+                continue;
+            }
+            lines.add(line);
+            if (lines.size() == CHUNK_ROWS) {
+                imported += importChunk(lines, firstLine, seen, errors);
+                rows += lines.size();
+                firstLine += lines.size();
+                lines.clear();
+            }
+        }
+        if (!lines.isEmpty()) {
+            imported += importChunk(lines, firstLine, seen, errors);
+            rows += lines.size();
+        }
+
+        errors.sort(Comparator.comparingInt(RowError::line));
+        return new Report(rows, imported, errors, System.nanoTime() - start);
+    }
+
+    private int importChunk(List<String> lines, int firstLine, Set<String> seen, List<RowError> errors) {
+        // every row is independent, so parse and validate them in parallel
+        Checked[] checked = new Checked[lines.size()];
+        IntStream.range(0, lines.size()).parallel()
+                .forEach(i -> checked[i] = check(firstLine + i, lines.get(i)));
+
+        // duplicates within the file are rejected in file order, the first one wins
+        List<NewUser> users = new ArrayList<>();
+        List<Integer> userLines = new ArrayList<>();
+        for (Checked c : checked) {
+            if (c == null) continue;
+            if (c.error() != null) {
+                errors.add(new RowError(c.line(), c.username(), c.error()));
+            } else if (!seen.add(c.username())) {
+                errors.add(new RowError(c.line(), c.username(), "Duplicate username in file"));
+            } else {
+                users.add(c.user());
+                userLines.add(c.line());
+            }
+        }
+
+        String[] dbErrors = db.registerAll(users);
+        int imported = 0;
+        for (int i = 0; i < dbErrors.length; i++) {
+            if (dbErrors[i] == null) {
+                imported++;
+            } else {
+                errors.add(new RowError(userLines.get(i), users.get(i).username(), dbErrors[i]));
+            }
+        }
+        return imported;
+    }
+
+    // null for a blank line
+    private static Checked check(int line, String text) {
+        if (text.isBlank()) return null;
+        List<String> fields = splitCsv(text);
+        if (fields == null) {
+            return new Checked(line, null, "", "Unterminated quote");
+        }
+        String username = fields.get(0).trim();
+        if (fields.size() < 3 || fields.size() > 4) {
+            return new Checked(line, null, username, "Expected username,password,email[,role]");
+        }
+        String password = fields.get(1);
+        String email = fields.get(2).trim();
+        String role = fields.size() == 4 && !fields.get(3).isBlank() ? fields.get(3).trim().toLowerCase() : DEFAULT_ROLE;
+
+        UserNameRecognizer.Result name = UserNameRecognizer.recognize(username);
+        if (!name.isValid()) {
+            return new Checked(line, null, username, "Username: " + name.getMessage().replace("\n", " ").trim());
+        }
+        PasswordEvaluator.Result pass = PasswordEvaluator.evaluate(password);
+        if (!pass.isValid()) {
+            return new Checked(line, null, username, "Password: " + pass.getMessage());
+        }
+        if (email.indexOf('@') <= 0) {
+            return new Checked(line, null, username, "Invalid email");
+        }
+        if (Role.maskOf(role) == 0) {
+            return new Checked(line, null, username, "Unknown role: " + role);
+        }
+        return new Checked(line, new NewUser(username, password, email, role), username, null);
+    }
+
+    // splits one csv line, null when a quoted field is not closed
+    static List<String> splitCsv(String text) {
+        List<String> fields = new ArrayList<>(4);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < text.length() && text.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) return null;
+        fields.add(field.toString());
+        return fields;
+    }
+}
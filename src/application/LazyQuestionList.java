@@ -0,0 +1,157 @@
+package application;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import databasePart1.AsyncDatabaseHelper;
+import javafx.application.Platform;
+import javafx.collections.ObservableListBase;
+
+// the question list as a window over the whole table. size() is the number of questions, but
+// rows are only fetched a page at a time when the ListView first draws them, and only the
+// pages viewed most recently are kept. the ListView asks for the rows it shows and nothing
+// else, so scrolling through 500k questions holds at most MAX_PAGES pages in memory.
+// a row that is still on its way shows as the LOADING placeholder until its page arrives.
+// everything here runs on the fx thread, the queries run on the async db executor
+class LazyQuestionList extends ObservableListBase<Question> {
+
+    static final int DEFAULT_PAGE_SIZE = 100;
+    // pages kept in memory, the rest are fetched again if they scroll back into view
+    private static final int MAX_PAGES = 12;
+    // pages fetched ahead in the direction the user is scrolling
+    private static final int PREFETCH_PAGES = 2;
+
+    // shown for rows that are not loaded yet, id -1 so edit, delete and replies refuse it
+    static final Question LOADING = new Question("Loading...", "", "");
+
+    private final QuestionManager manager;
+    private final AsyncDatabaseHelper async;
+    private final int pageSize;
+
+    private int size;
+    // bumped by reload so answers to older requests are dropped
+    private int generation;
+    // access ordered, so the first entry is the page viewed least recently
+    private final LinkedHashMap<Integer, List<Question>> pages = new LinkedHashMap<>(16, 0.75f, true);
+    private final Set<Integer> inFlight = new HashSet<>();
+    private int lastPage = -1;
+
+    LazyQuestionList(QuestionManager manager, AsyncDatabaseHelper async) {
+        this(manager, async, DEFAULT_PAGE_SIZE);
+    }
+
+    LazyQuestionList(QuestionManager manager, AsyncDatabaseHelper async, int pageSize) {
+        if (pageSize < 1) throw new IllegalArgumentException("pageSize must be positive");
+        this.manager = manager;
+        this.async = async;
+        this.pageSize = pageSize;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Question get(int index) {
+        Objects.checkIndex(index, size);
+        int page = index / pageSize;
+        if (page != lastPage) {
+            prefetch(page, page > lastPage ? 1 : -1);
+            lastPage = page;
+        }
+        List<Question> rows = pages.get(page);
+        if (rows == null) {
+            fetch(page, false);
+            return LOADING;
+        }
+        int i = index % pageSize;
+        return i < rows.size() ? rows.get(i) : LOADING;
+    }
+
+    // counts the questions again, e.g. after an add, edit or delete. when the count is the same
+    // the pages on screen are fetched again in place, so the list does not jump
+    CompletableFuture<Integer> reload() {
+        int gen = ++generation;
+        inFlight.clear();
+        return async.supply(manager::countQuestions).thenApplyAsync(count -> {
+            if (gen != generation) return count;
+            if (count == size) {
+                for (int page : new ArrayList<>(pages.keySet())) {
+                    fetch(page, true);
+                }
+                return count;
+            }
+            int oldSize = size;
+            pages.clear();
+            lastPage = -1;
+            beginChange();
+            if (oldSize > 0) nextRemove(0, Collections.nCopies(oldSize, LOADING));
+            size = count;
+            if (count > 0) nextAdd(0, count);
+            endChange();
+            return count;
+        }, Platform::runLater);
+    }
+
+    private void prefetch(int page, int direction) {
+        for (int k = 1; k <= PREFETCH_PAGES; k++) {
+            fetch(page + k * direction, false);
+        }
+    }
+
+    // loads one page off the fx thread, then tells the ListView those rows changed
+    private void fetch(int page, boolean again) {
+        if (page < 0 || page * pageSize >= size) return;
+        if (!again && pages.containsKey(page)) return;
+        if (!inFlight.add(page)) return;
+
+        int gen = generation;
+        // scrolling seeks from a QID on the neighbouring page, down from the last one above or up
+        // from the first one below. h2 cannot find the n-th row through an index, so a jump with
+        // no loaded neighbour (the scrollbar dragged far away) is the only fetch that pays for OFFSET
+        List<Question> above = pages.get(page - 1);
+        List<Question> below = pages.get(page + 1);
+        Supplier<ArrayList<Question>> load;
+        if (above != null && above.size() == pageSize) {
+            int beforeQid = above.get(pageSize - 1).getId();
+            load = () -> manager.getQuestionsBefore(beforeQid, pageSize);
+        } else if (below != null && !below.isEmpty()) {
+            int afterQid = below.get(0).getId();
+            load = () -> manager.getQuestionsAfter(afterQid, pageSize);
+        } else {
+            load = () -> manager.getQuestionsAt(page * pageSize, pageSize);
+        }
+
+        async.supply(load).whenCompleteAsync((rows, err) -> {
+            if (gen != generation) return;
+            inFlight.remove(page);
+            // a failed page stays on LOADING and is asked for again the next time it is drawn
+            if (err != null) return;
+            pages.put(page, rows);
+            evictExcept(page);
+            int from = page * pageSize;
+            int to = Math.min(size, from + pageSize);
+            if (from >= to) return;
+            beginChange();
+            nextReplace(from, to, Collections.nCopies(to - from, LOADING));
+            endChange();
+        }, Platform::runLater);
+    }
+
+    private void evictExcept(int keep) {
+        Iterator<Map.Entry<Integer, List<Question>>> it = pages.entrySet().iterator();
+        while (pages.size() > MAX_PAGES && it.hasNext()) {
+            if (it.next().getKey() != keep) it.remove();
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package application;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import databasePart1.ConnectionPool;
+import databasePart1.DatabaseHelper;
+import databasePart1.DatabaseMetrics;
+import databasePart1.LatencyHistogram;
+import databasePart1.OperationSnapshot;
+import javafx.application.Platform;
+import javafx.geometry.Insets;
+import javafx.scene.Node;
+import javafx.scene.chart.LineChart;
+import javafx.scene.chart.NumberAxis;
+import javafx.scene.chart.XYChart;
+import javafx.scene.control.Label;
+import javafx.scene.control.ScrollPane;
+import javafx.scene.layout.GridPane;
+import javafx.scene.layout.VBox;
+
+/**
+ * Metrics tab of the admin page.
+ * - a background thread reads the in-process counters once a second
+ * - the fx thread turns them into per-second rates and adds them to ring buffers
+ * - the charts show the last five minutes
+ * How long the fx thread takes to pick up each reading is charted as the fx pulse latency.
+ */
+class MetricsDashboard {
+
+    private static final int HISTORY_SECONDS = 300;
+    private static final long SAMPLE_MS = 1_000;
+    private static final int TOP_OPERATIONS = 5;
+
+    // raw counters as read on the sampler thread, the fx thread compares two of them
+    private record Sample(long nanos, long calls, long errors, LatencyHistogram latency,
+                          List<OperationSnapshot> operations,
+                          int poolActive, int poolIdle, int poolWaiting, int poolMax,
+                          long statementHits, long statementMisses, long roleHits, long roleMisses,
+                          long heapUsed, long heapMax, long gcCount, long gcMillis) { }
+
+    // one chart and the ring buffers it draws
+    private static final class Panel {
+        final LineChart<Number, Number> chart;
+        final TimeSeries[] series;
+        final List<XYChart.Series<Number, Number>> lines = new ArrayList<>();
+
+        Panel(String title, String unit, TimeSeries... series) {
+            NumberAxis x = new NumberAxis(-(HISTORY_SECONDS - 1), 0, 60);
+            x.setLabel("seconds");
+            NumberAxis y = new NumberAxis();
+            y.setLabel(unit);
+            y.setForceZeroInRange(true);
+            chart = new LineChart<>(x, y);
+            chart.setTitle(title);
+            chart.setAnimated(false);
+            chart.setCreateSymbols(false);
+            chart.setPrefHeight(220);
+            this.series = series;
+            for (int i = 0; i < series.length; i++) {
+                lines.add(new XYChart.Series<>());
+            }
+            chart.getData().addAll(lines);
+        }
+
+        void refresh() {
+            for (int i = 0; i < series.length; i++) {
+                series[i].copyTo(lines.get(i));
+            }
+        }
+    }
+
+    private final DatabaseHelper db;
+
+    private final TimeSeries opsRate = new TimeSeries("ops/s", HISTORY_SECONDS);
+    private final TimeSeries errorRate = new TimeSeries("errors/s", HISTORY_SECONDS);
+    private final TimeSeries p50 = new TimeSeries("p50", HISTORY_SECONDS);
+    private final TimeSeries p99 = new TimeSeries("p99", HISTORY_SECONDS);
+    private final TimeSeries poolActive = new TimeSeries("in use", HISTORY_SECONDS);
+    private final TimeSeries poolIdle = new TimeSeries("idle", HISTORY_SECONDS);
+    private final TimeSeries poolWaiting = new TimeSeries("waiting", HISTORY_SECONDS);
+    private final TimeSeries statementHitRatio = new TimeSeries("statement cache", HISTORY_SECONDS);
+    private final TimeSeries roleHitRatio = new TimeSeries("role cache", HISTORY_SECONDS);
+    private final TimeSeries heapUsed = new TimeSeries("heap MB", HISTORY_SECONDS);
+    private final TimeSeries gcTime = new TimeSeries("gc ms/s", HISTORY_SECONDS);
+    private final TimeSeries fxLatency = new TimeSeries("fx pulse ms", HISTORY_SECONDS);
+
+    private final List<Panel> panels = new ArrayList<>();
+    private final Label summary = new Label();
+    private final Label topOperations = new Label();
+    private final ScrollPane view;
+
+    private ScheduledExecutorService sampler;
+    // only used on the fx thread
+    private Sample previous;
+
+    MetricsDashboard(DatabaseHelper db) {
+        this.db = db;
+
+        panels.add(new Panel("Database operations", "per second", opsRate, errorRate));
+        panels.add(new Panel("Database latency", "ms", p50, p99));
+        panels.add(new Panel("Connection pool", "connections", poolActive, poolIdle, poolWaiting));
+        panels.add(new Panel("Cache hit ratio", "%", statementHitRatio, roleHitRatio));
+        panels.add(new Panel("Memory", "MB, ms/s", heapUsed, gcTime));
+        panels.add(new Panel("FX pulse latency", "ms", fxLatency));
+
+        GridPane grid = new GridPane();
+        grid.setHgap(8);
+        grid.setVgap(8);
+        for (int i = 0; i < panels.size(); i++) {
+            grid.add(panels.get(i).chart, i % 2, i / 2);
+        }
+
+        VBox root = new VBox(8, summary, new Label("Busiest operations in the last second:"), topOperations, grid);
+        root.setPadding(new Insets(16));
+        view = new ScrollPane(root);
+        view.setFitToWidth(true);
+    }
+
+    Node getView() {
+        return view;
+    }
+
+    // starts sampling, call from the fx thread
+    void start() {
+        if (sampler != null) return;
+        sampler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "metrics-sampler");
+            t.setDaemon(true);
+            return t;
+        });
+        sampler.scheduleAtFixedRate(() -> {
+            Sample sample = sample();
+            long posted = System.nanoTime();
+            Platform.runLater(() -> apply(sample, System.nanoTime() - posted));
+        }, 0, SAMPLE_MS, TimeUnit.MILLISECONDS);
+    }
+
+    void stop() {
+        if (sampler != null) {
+            sampler.shutdownNow();
+            sampler = null;
+        }
+    }
+
+    // reads every counter, runs on the sampler thread
+    private Sample sample() {
+        DatabaseMetrics metrics = db.getMetrics();
+        ConnectionPool pool = db.getPool();
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        long gcCount = 0;
+        long gcMillis = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            gcCount += Math.max(0, gc.getCollectionCount());
+            gcMillis += Math.max(0, gc.getCollectionTime());
+        }
+        return new Sample(System.nanoTime(), metrics.getTotalCalls(), metrics.getTotalErrors(),
+                metrics.totalLatency(), metrics.snapshot(),
+                pool == null ? 0 : pool.getActiveCount(), pool == null ? 0 : pool.getIdleCount(),
+                pool == null ? 0 : pool.getWaitingCount(), pool == null ? 0 : pool.getMaxSize(),
+                pool == null ? 0 : pool.getStatementCacheHits(), pool == null ? 0 : pool.getStatementCacheMisses(),
+                db.getRoleCacheHits(), db.getRoleCacheMisses(),
+                heap.getUsed(), heap.getMax(), gcCount, gcMillis);
+    }
+
+    // turns two readings into one point per series, runs on the fx thread
+    private void apply(Sample now, long fxDelayNanos) {
+        if (sampler == null) return;
+        Sample before = previous;
+        previous = now;
+        fxLatency.add(fxDelayNanos / 1e6);
+        if (before == null) return;
+
+        double seconds = Math.max(1e-3, (now.nanos() - before.nanos()) / 1e9);
+        opsRate.add(Math.max(0, now.calls() - before.calls()) / seconds);
+        errorRate.add(Math.max(0, now.errors() - before.errors()) / seconds);
+
+        LatencyHistogram interval = now.latency().since(before.latency());
+        // keep the last value through quiet seconds instead of dropping to zero
+        p50.add(interval.count() == 0 ? p50.latest() : interval.percentile(0.50) / 1e6);
+        p99.add(interval.count() == 0 ? p99.latest() : interval.percentile(0.99) / 1e6);
+
+        poolActive.add(now.poolActive());
+        poolIdle.add(now.poolIdle());
+        poolWaiting.add(now.poolWaiting());
+
+        statementHitRatio.add(hitRatio(now.statementHits() - before.statementHits(),
+                now.statementMisses() - before.statementMisses(), statementHitRatio));
+        roleHitRatio.add(hitRatio(now.roleHits() - before.roleHits(),
+                now.roleMisses() - before.roleMisses(), roleHitRatio));
+
+        heapUsed.add(now.heapUsed() / 1e6);
+        gcTime.add(Math.max(0, now.gcMillis() - before.gcMillis()) / seconds);
+
+        for (Panel panel : panels) {
+            panel.refresh();
+        }
+        summary.setText(String.format(
+                "%.0f ops/s, p99 %.2f ms, pool %d/%d in use (%d waiting), heap %.0f of %.0f MB, %d GCs, fx pulse %.1f ms",
+                opsRate.latest(), p99.latest(), now.poolActive(), now.poolMax(), now.poolWaiting(),
+                now.heapUsed() / 1e6, now.heapMax() / 1e6, now.gcCount(), fxLatency.latest()));
+        topOperations.setText(busiest(before.operations(), now.operations()));
+    }
+
+    // percent of lookups served from the cache, the last value again when there were none
+    private static double hitRatio(long hits, long misses, TimeSeries series) {
+        long total = hits + misses;
+        if (total <= 0) return series.latest();
+        return 100.0 * Math.max(0, hits) / total;
+    }
+
+    // the operations that took the most database time between the two readings
+    private static String busiest(List<OperationSnapshot> before, List<OperationSnapshot> now) {
+        Map<String, OperationSnapshot> earlier = new HashMap<>();
+        for (OperationSnapshot s : before) earlier.put(s.operation(), s);
+
+        record Delta(String operation, long calls, long nanos) { }
+        List<Delta> deltas = new ArrayList<>();
+        for (OperationSnapshot s : now) {
+            OperationSnapshot e = earlier.get(s.operation());
+            long calls = s.calls() - (e == null ? 0 : e.calls());
+            long nanos = s.totalNanos() - (e == null ? 0 : e.totalNanos());
+            if (calls > 0) deltas.add(new Delta(s.operation(), calls, nanos));
+        }
+        if (deltas.isEmpty()) return "(idle)";
+        deltas.sort(Comparator.comparingLong(Delta::nanos).reversed());
+
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < Math.min(TOP_OPERATIONS, deltas.size()); i++) {
+            Delta d = deltas.get(i);
+            if (i > 0) text.append('\n');
+            text.append(String.format("%s: %d calls, %.2f ms avg, %.1f ms total",
+                    d.operation(), d.calls(), d.nanos() / 1e6 / d.calls(), d.nanos() / 1e6));
+        }
+        return text.toString();
+    }
+}
@@ -4,149 +4,145 @@ package application;
 public class PasswordEvaluator {
 	/**
 	 * <p> Title: Directed Graph-translated Password Assessor. </p>
-	 * 
-	 * <p> Description: A demonstration of the mechanical translation of Directed Graph 
-	 * diagram into an executable Java program using the Password Evaluator Directed Graph. 
-	 * The code detailed design is based on a while loop with a cascade of if statements</p>
-	 * 
+	 *
+	 * <p> Description: Checks a password against the conditions of the Password Evaluator
+	 * Directed Graph: an upper case letter, a lower case letter, a digit, a special character
+	 * and at least eight characters, with no character outside those classes.</p>
+	 *
+	 * <p> evaluate(String) makes one pass over the input, looking each character's class up
+	 * in a table, and returns everything it found in an immutable Result: the status, the
+	 * conditions that were missed as bits, and the index of the error. Nothing is kept between
+	 * calls, so it can be used from several threads at once (bulk registration), and a valid
+	 * password is evaluated without allocating anything. evaluatePassword(String) returns
+	 * only the Result's message, for the pages that show it as is.</p>
+	 *
 	 * <p> Copyright: Lynn Robert Carter © 2022 </p>
-	 * 
+	 *
 	 * @author Lynn Robert Carter
-	 * 
-	 * @version 0.00		2018-02-22	Initial baseline 
-	 * 
+	 *
+	 * @version 0.00		2018-02-22	Initial baseline
+	 *
 	 */
 
 	/**********************************************************************************************
-	 * 
-	 * Result attributes to be used for GUI applications where a detailed error message and a 
-	 * pointer to the character of the error will enhance the user experience.
-	 * 
+	 *
+	 * The conditions a password has to satisfy, as bits so a Result can report every one that
+	 * was missed in a single int.
+	 *
 	 */
 
-	public static String passwordErrorMessage = "";		// The error message text
-	public static String passwordInput = "";			// The input being processed
-	public static int passwordIndexofError = -1;		// The index where the error was located
-	public static boolean foundUpperCase = false;
-	public static boolean foundLowerCase = false;
-	public static boolean foundNumericDigit = false;
-	public static boolean foundSpecialChar = false;
-	public static boolean foundLongEnough = false;
-	private static String inputLine = "";				// The input line
-	private static char currentChar;					// The current character in the line
-	private static int currentCharNdx;					// The index of the current character
-	private static boolean running;						// The flag that specifies if the FSM is 
-														// running
+	public static final int UPPER_CASE = 1;
+	public static final int LOWER_CASE = 2;
+	public static final int NUMERIC_DIGIT = 4;
+	public static final int SPECIAL_CHAR = 8;
+	public static final int LONG_ENOUGH = 16;
+	private static final int ALL_CONDITIONS = UPPER_CASE | LOWER_CASE | NUMERIC_DIGIT | SPECIAL_CHAR;
+
+	private static final int MIN_LENGTH = 8;
+	private static final String SPECIAL_CHARACTERS = "~`!@#$%^&*()_-+{}[]|\\:\"',.?/";
+
+	// character class of every ascii character, 0 means the character is not allowed
+	private static final byte[] CHAR_CLASS = new byte[128];
+
+	static {
+		for (char c = 'A'; c <= 'Z'; c++) CHAR_CLASS[c] = UPPER_CASE;
+		for (char c = 'a'; c <= 'z'; c++) CHAR_CLASS[c] = LOWER_CASE;
+		for (char c = '0'; c <= '9'; c++) CHAR_CLASS[c] = NUMERIC_DIGIT;
+		for (int i = 0; i < SPECIAL_CHARACTERS.length(); i++) CHAR_CLASS[SPECIAL_CHARACTERS.charAt(i)] = SPECIAL_CHAR;
+	}
 
 	/**********
-	 * This private method display the input line and then on a line under it displays an up arrow
-	 * at the point where an error should one be detected.  This method is designed to be used to 
-	 * display the error message on the console terminal.
-	 * 
-	 * @param input				The input string
-	 * @param currentCharNdx	The location where an error was found
-	 * @return					Two lines, the entire input line followed by a line with an up arrow
+	 * The outcome of one evaluation. errorIndex points at the invalid character, or at the end
+	 * of the input when conditions were missed, and is -1 for a valid password.
 	 */
-	private static void displayInputState() {
-		// Display the entire input line
-		System.out.println(inputLine);
-		System.out.println(inputLine.substring(0,currentCharNdx) + "?");
-		System.out.println("The password size: " + inputLine.length() + "  |  The currentCharNdx: " + 
-				currentCharNdx + "  |  The currentChar: \"" + currentChar + "\"");
+	public static final class Result {
+		public enum Status { VALID, EMPTY, INVALID_CHARACTER, CONDITIONS_NOT_MET }
+
+		static final Result VALID = new Result(Status.VALID, 0, -1);
+		static final Result EMPTY = new Result(Status.EMPTY, 0, 0);
+
+		private final Status status;
+		private final int missingConditions;
+		private final int errorIndex;
+
+		private Result(Status status, int missingConditions, int errorIndex) {
+			this.status = status;
+			this.missingConditions = missingConditions;
+			this.errorIndex = errorIndex;
+		}
+
+		public Status getStatus() { return status; }
+
+		public boolean isValid() { return status == Status.VALID; }
+
+		// bits of the conditions that were not satisfied, see UPPER_CASE etc.
+		public int getMissingConditions() { return missingConditions; }
+
+		public boolean isMissing(int condition) { return (missingConditions & condition) != 0; }
+
+		public int getErrorIndex() { return errorIndex; }
+
+		// the message evaluatePassword has always returned, empty for a valid password
+		public String getMessage() {
+			switch (status) {
+				case VALID:
+					return "";
+				case EMPTY:
+					return "*** Error *** The password is empty!";
+				case INVALID_CHARACTER:
+					return "*** Error *** An invalid character has been found!";
+				default:
+					StringBuilder errMessage = new StringBuilder();
+					if (isMissing(UPPER_CASE)) errMessage.append("Upper case; ");
+					if (isMissing(LOWER_CASE)) errMessage.append("Lower case; ");
+					if (isMissing(NUMERIC_DIGIT)) errMessage.append("Numeric digits; ");
+					if (isMissing(SPECIAL_CHAR)) errMessage.append("Special character; ");
+					if (isMissing(LONG_ENOUGH)) errMessage.append("Long Enough; ");
+					return errMessage.append("conditions were not satisfied").toString();
+			}
+		}
+
+		@Override
+		public String toString() {
+			return isValid() ? "Result[VALID]" : "Result[" + status + " at " + errorIndex + ": " + getMessage() + "]";
+		}
 	}
 
 	/**********
-	 * This method is a mechanical transformation of a Directed Graph diagram into a Java
-	 * method.
-	 * 
-	 * @param input		The input string for directed graph processing
-	 * @return			An output string that is empty if every things is okay or it will be
-	 * 						a string with a help description of the error follow by two lines
-	 * 						that shows the input line follow by a line with an up arrow at the
-	 *						point where the error was found.
+	 * Classifies every character of the input and collects the classes it found. A character
+	 * that belongs to no class stops the evaluation with an error at its index.
+	 *
+	 * @param input		The password to check
+	 * @return			The result, immutable and possibly shared, never null
 	 */
-	public static String evaluatePassword(String input) {
-		// The following are the local variable used to perform the Directed Graph simulation
-		passwordErrorMessage = "";
-		passwordIndexofError = 0;			// Initialize the IndexofError
-		inputLine = input;					// Save the reference to the input line as a global
-		currentCharNdx = 0;					// The index of the current character
-		
-		if(input.length() <= 0) return "*** Error *** The password is empty!";
-		
-		// The input is not empty, so we can access the first character
-		currentChar = input.charAt(0);		// The current character from the above indexed position
-
-		// The Directed Graph simulation continues until the end of the input is reached or at some 
-		// state the current character does not match any valid transition to a next state
-
-		passwordInput = input;				// Save a copy of the input
-		foundUpperCase = false;				// Reset the Boolean flag
-		foundLowerCase = false;				// Reset the Boolean flag
-		foundNumericDigit = false;			// Reset the Boolean flag
-		foundSpecialChar = false;			// Reset the Boolean flag
-		foundNumericDigit = false;			// Reset the Boolean flag
-		foundLongEnough = false;			// Reset the Boolean flag
-		running = true;						// Start the loop
-
-		// The Directed Graph simulation continues until the end of the input is reached or at some 
-		// state the current character does not match any valid transition
-		while (running) {
-			displayInputState();
-			// The cascading if statement sequentially tries the current character against all of the
-			// valid transitions
-			if (currentChar >= 'A' && currentChar <= 'Z') {
-				System.out.println("Upper case letter found");
-				foundUpperCase = true;
-			} else if (currentChar >= 'a' && currentChar <= 'z') {
-				System.out.println("Lower case letter found");
-				foundLowerCase = true;
-			} else if (currentChar >= '0' && currentChar <= '9') {
-				System.out.println("Digit found");
-				foundNumericDigit = true;
-			} else if ("~`!@#$%^&*()_-+{}[]|\\:\"',.?/".indexOf(currentChar) >= 0) {
-				System.out.println("Special character found");
-				foundSpecialChar = true;
-			} else {
-				passwordIndexofError = currentCharNdx;
-				return "*** Error *** An invalid character has been found!";
-			}
-			if (currentCharNdx >= 7) {
-				System.out.println("At least 8 characters found");
-				foundLongEnough = true;
+	public static Result evaluate(String input) {
+		if (input == null || input.isEmpty()) return Result.EMPTY;
+
+		int found = 0;
+		int length = input.length();
+		for (int ndx = 0; ndx < length; ndx++) {
+			char c = input.charAt(ndx);
+			int charClass = c < 128 ? CHAR_CLASS[c] : 0;
+			if (charClass == 0) {
+				return new Result(Result.Status.INVALID_CHARACTER, 0, ndx);
 			}
-			
-			// Go to the next character if there is one
-			currentCharNdx++;
-			if (currentCharNdx >= inputLine.length())
-				running = false;
-			else
-				currentChar = input.charAt(currentCharNdx);
-			
-			System.out.println();
+			found |= charClass;
 		}
-		
-		String errMessage = "";
-		if (!foundUpperCase)
-			errMessage += "Upper case; ";
-		
-		if (!foundLowerCase)
-			errMessage += "Lower case; ";
-		
-		if (!foundNumericDigit)
-			errMessage += "Numeric digits; ";
-			
-		if (!foundSpecialChar)
-			errMessage += "Special character; ";
-			
-		if (!foundLongEnough)
-			errMessage += "Long Enough; ";
-		
-		if (errMessage == "")
-			return "";
-		
-		passwordIndexofError = currentCharNdx;
-		return errMessage + "conditions were not satisfied";
 
+		int missing = ALL_CONDITIONS & ~found;
+		if (length < MIN_LENGTH) missing |= LONG_ENOUGH;
+		if (missing == 0) return Result.VALID;
+		return new Result(Result.Status.CONDITIONS_NOT_MET, missing, length);
+	}
+
+	/**********
+	 * The message of evaluate(input), for callers that only show the text.
+	 *
+	 * @param input		The password to check
+	 * @return			An output string that is empty if every things is okay or it will be
+	 * 						a string with a help description of the error
+	 */
+	public static String evaluatePassword(String input) {
+		return evaluate(input).getMessage();
 	}
 }
@@ -9,10 +9,13 @@ import java.util.List;
  */
 public class Question {
 
+    // Database id (QID) of the question, -1 until it has been saved
+    private int id;
+
     // Title of the question
     private String title;
 
-    // Main content or description of the question
+    // Main content or description of the question, null while only the summary has been loaded
     private String body;
 
     // Username of the person who created the question
@@ -21,6 +24,9 @@ public class Question {
     // Indicates whether the question has been marked as solved
     private boolean solved;
 
+    // Number of replies, as counted when the question was listed
+    private int answerCount;
+
     // List of answers associated with this question
     private List<Answer> answers;
 
@@ -33,6 +39,20 @@ public class Question {
      * @param author  The username of the question's author
      */
     public Question(String title, String body, String author) {
+        this(-1, title, body, author);
+    }
+
+    /**
+     * Constructor for a question loaded from the database, so later updates,
+     * deletes and replies can address it by its primary key.
+     *
+     * @param id      The QID of the question
+     * @param title   The title of the question
+     * @param body    The main content or body of the question
+     * @param author  The username of the question's author
+     */
+    public Question(int id, String title, String body, String author) {
+        this.id = id;
         this.title = title;
         this.body = body;
         this.author = author;
@@ -41,16 +61,21 @@ public class Question {
     }
 
     // Getter methods for accessing question properties
+    public int getId() { return id; }
     public String getTitle() { return title; }
     public String getBody() { return body; }
     public String getAuthor() { return author; }
     public boolean isSolved() { return solved; }
+    public int getAnswerCount() { return answerCount; }
+    public boolean isBodyLoaded() { return body != null; }
     public List<Answer> getAnswers() { return answers; }
 
     // Setter methods for modifying question properties
+    public void setId(int id) { this.id = id; }
     public void setTitle(String title) { this.title = title; }
     public void setBody(String body) { this.body = body; }
     public void setSolved(boolean solved) { this.solved = solved; }
+    public void setAnswerCount(int answerCount) { this.answerCount = answerCount; }
 
     /**
      * Adds a new answer to the list of answers for this question.
@@ -1,6 +1,8 @@
 package application;
 
 import databasePart1.DatabaseHelper;
+import databasePart1.QuestionRow;
+import databasePart1.QuestionSummary;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -18,66 +20,109 @@ public class QuestionManager {
         this.username = username;
     }
 
-    // creating a quesiton
-    public void addQuestion(Question q) {
-        db.addQuestion(username, q.getTitle(), q.getBody());
-        System.out.println("Sucessfully saved question to DB: " + q.getTitle());
+    // creating a quesiton, on success it carries its new QID so later edits address the right row
+    public boolean addQuestion(Question q) {
+        int qid = db.createQuestion(username, q.getTitle(), q.getBody());
+        if (qid <= 0) return false;
+        q.setId(qid);
+        return true;
     }
 
     // reading our questions
     public ArrayList<Question> getAllQuestions() {
         ArrayList<Question> list = new ArrayList<>();
-        List<String[]> rows = db.getAllQuestions();
-        for (String[] r : rows) {
-            Question q = new Question(r[2], r[3], r[1]); // title, body, author
-            list.add(q);
+        List<QuestionRow> rows = db.getAllQuestions();
+        for (QuestionRow r : rows) {
+            list.add(toQuestion(r));
         }
         return list;
     }
 
-    // searching
-    public ArrayList<Question> search(String keyword) {
-        ArrayList<Question> list = new ArrayList<>();
-        List<String[]> rows = db.searchQuestions(keyword);
-        for (String[] r : rows) {
-            Question q = new Question(r[2], r[3], r[1]);
-            list.add(q);
+    // random access for the scrolling question list, see LazyQuestionList
+    public int countQuestions() {
+        return db.countQuestions();
+    }
+
+    // list rows come without bodies, loadBody fetches one when the question is opened
+    public ArrayList<Question> getQuestionsAt(int offset, int count) {
+        return toQuestions(db.getQuestionSummariesAt(offset, count));
+    }
+
+    // the count questions just older than beforeQid, no OFFSET needed
+    public ArrayList<Question> getQuestionsBefore(int beforeQid, int count) {
+        return toQuestions(db.getQuestionSummariesPage(beforeQid, count));
+    }
+
+    // the count questions just newer than afterQid, newest first
+    public ArrayList<Question> getQuestionsAfter(int afterQid, int count) {
+        return toQuestions(db.getQuestionSummariesAfter(afterQid, count));
+    }
+
+    private static ArrayList<Question> toQuestions(List<QuestionSummary> rows) {
+        ArrayList<Question> list = new ArrayList<>(rows.size());
+        for (QuestionSummary s : rows) {
+            list.add(toQuestion(s));
         }
         return list;
     }
 
-    // UPDATE
-    public void updateQuestionTitle(String oldTitle, String newTitle) {
-        //for basics we tried to keep the search engine consistent with match make searches.
-        List<String[]> all = db.getAllQuestions();
-        for (String[] q : all) {
-            if (q[2].equalsIgnoreCase(oldTitle)) {
-                db.updateQuestion(Integer.parseInt(q[0]), newTitle, q[3]);
-                System.out.println("Updated The question title: " + oldTitle + " → " + newTitle);
-                return;
-            }
+    // the body of a listed question, read once and then kept on the question
+    public String loadBody(Question question) {
+        if (!question.isBodyLoaded() && question.getId() > 0) {
+            question.setBody(db.getQuestionBody(question.getId()));
+        }
+        return question.getBody();
+    }
+
+    // searching, summaries only like the other list screens
+    public ArrayList<Question> search(String keyword) {
+        return toQuestions(db.searchQuestionSummaries(keyword));
+    }
+
+    private static Question toQuestion(QuestionRow r) {
+        return new Question(r.qid(), r.title(), r.body(), r.username());
+    }
+
+    private static Question toQuestion(QuestionSummary s) {
+        Question q = new Question(s.qid(), s.title(), null, s.username());
+        q.setAnswerCount(s.answerCount());
+        q.setSolved(s.solved());
+        return q;
+    }
+
+    // UPDATE, by primary key so duplicate titles can never hit the wrong row
+    public boolean updateQuestionTitle(Question question, String newTitle) {
+        // a listed question has no body yet, and the update must not blank it
+        boolean ok = db.updateQuestion(question.getId(), newTitle, loadBody(question));
+        if (ok) {
+            System.out.println("Updated The question title: " + question.getTitle() + " → " + newTitle);
+            question.setTitle(newTitle);
         }
+        return ok;
     }
 
     // to delete
-    public void deleteQuestion(String title) {
-        List<String[]> all = db.getAllQuestions();
-        for (String[] q : all) {
-            if (q[2].equalsIgnoreCase(title)) {
-                db.deleteQuestion(Integer.parseInt(q[0]));
-                System.out.println("Deleted question: " + title);
-                return;
-            }
+    public boolean deleteQuestion(Question question) {
+        return deleteQuestion(question.getId());
+    }
+
+    public boolean deleteQuestion(int qid) {
+        boolean ok = db.deleteQuestion(qid);
+        if (ok) {
+            System.out.println("Deleted question: " + qid);
         }
+        return ok;
     }
 
-    // accpeting answer or state
-    public void markAnswerAccepted(Question question, Answer answer) {
+    // accepting an answer, saved as ACCEPTED_AID and SOLVED on the question row so the lists and
+    // the triage queue see it. the in-memory copies follow only once the database took it
+    public boolean markAnswerAccepted(Question question, Answer answer) {
+        if (answer.getId() <= 0 || !db.markAnswerAccepted(answer.getId())) return false;
         for (Answer a : question.getAnswers()) {
             a.setAccepted(false);
         }
         answer.setAccepted(true);
         question.setSolved(true);
-        System.out.println(" Accepted answer: " + answer.getText());
+        return true;
     }
 }
@@ -2,13 +2,14 @@ package application;
 
 import application.privileges.Privileges;
 import databasePart1.DatabaseHelper;
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
 import javafx.geometry.Insets;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
-import java.util.ArrayList;
 
 // student portal and admin portal
 
@@ -23,14 +24,19 @@ public class QuestionPage {
     private final QuestionManager manager;
     private final DatabaseHelper db;
     private final String username;
-    private final Privileges privileges;
+    // read off the fx thread when the page opens, null until it arrives. fx thread only
+    private Privileges privileges;
+    // how many questions or search results the list holds
+    private Label countLabel;
+    // every question, fetched page by page while scrolling
+    private LazyQuestionList allQuestions;
 
 
     public QuestionPage(DatabaseHelper db, String username) {
         this.db = db;
         this.username = username;
         this.manager = new QuestionManager(db, username);
-        this.privileges = new Privileges(db, username);
+        this.allQuestions = new LazyQuestionList(manager, db.async());
     }
 
 
@@ -39,6 +45,9 @@ public class QuestionPage {
         VBox root = new VBox(10);
         root.setPadding(new Insets(12));
 
+        // the role lookup can go to the database, so it must not run on the fx thread
+        db.async().supply(() -> new Privileges(db, username)).thenAcceptAsync(p -> privileges = p, Platform::runLater);
+
         Label titleLabel = new Label("Ask a Question");
         titleLabel.setStyle("-fx-font-size: 18; -fx-font-weight: bold;");
 
@@ -61,8 +70,27 @@ public class QuestionPage {
         Button searchBtn = new Button("Search");
 
         // -ojur list view
+        // one fixed row height, so the list never measures rows that are not on screen
         ListView<Question> questionList = new ListView<>();
         questionList.setPrefHeight(250);
+        questionList.setFixedCellSize(24);
+        questionList.setPlaceholder(new Label("No questions yet."));
+        questionList.setCellFactory(lv -> new ListCell<>() {
+            @Override
+            protected void updateItem(Question q, boolean empty) {
+                super.updateItem(q, empty);
+                // loading and "no results" rows have no author to show
+                if (empty || q == null) {
+                    setText(null);
+                } else if (q.getId() < 0) {
+                    setText(q.getTitle());
+                } else {
+                    setText(q + "   (" + q.getAnswerCount() + (q.getAnswerCount() == 1 ? " reply" : " replies")
+                            + (q.isSolved() ? ", solved)" : ")"));
+                }
+            }
+        });
+        countLabel = new Label();
 
         // adding questions
         addBtn.setOnAction(e -> {
@@ -75,23 +103,32 @@ public class QuestionPage {
             }
 
             Question q = new Question(title, body, username);
-            manager.addQuestion(q);
-            titleField.clear();
-            bodyArea.clear();
-            showAlert("Success", "Question added successfully.");
-            refreshList(questionList);
+            addBtn.setDisable(true);
+            // new questions show up at the top of the list
+            db.async().supply(() -> manager.addQuestion(q)).whenCompleteAsync((saved, err) -> {
+                addBtn.setDisable(false);
+                if (err != null || !saved) {
+                    showAlert("Error", "Could not add the question" + (err != null ? ": " + err.getMessage() : "."));
+                    return;
+                }
+                titleField.clear();
+                bodyArea.clear();
+                showAll(questionList);
+                questionList.scrollTo(0);
+                showAlert("Success", "Question added successfully.");
+            }, Platform::runLater);
         });
 
         //editing questions that were submitted
         editBtn.setOnAction(e -> {
             Question selected = questionList.getSelectionModel().getSelectedItem();
-            if (selected == null || selected.getTitle().startsWith("No ")) {
+            if (selected == null || selected.getId() < 0) {
                 showAlert("No Selection", "Please select a valid question to edit.");
                 return;
             }
 
             //  author, admin, staff instruction call procedures
-            if (!privileges.canModifyQuestion(selected.getAuthor())) {
+            if (!canModify(selected.getAuthor())) {
                 showAlert("Permission Denied", "You can only edit your own question or be Staff/Admin/Instructor.");
                 return;
             }
@@ -101,22 +138,28 @@ public class QuestionPage {
             dialog.setHeaderText("Editing: " + selected.getTitle());
             dialog.setContentText("Enter new title:");
             dialog.showAndWait().ifPresent(newTitle -> {
-                manager.updateQuestionTitle(selected.getTitle(), newTitle);
-                showAlert("Updated", "Question title updated successfully.");
-                refreshList(questionList);
+                db.async().supply(() -> manager.updateQuestionTitle(selected, newTitle))
+                        .whenCompleteAsync((ok, err) -> {
+                            if (err != null || !ok) {
+                                showAlert("Error", "Could not update this question, it may have been deleted.");
+                            } else {
+                                showAlert("Updated", "Question title updated successfully.");
+                            }
+                            showAll(questionList);
+                        }, Platform::runLater);
             });
         });
 
         //deleting hte selected 
         deleteBtn.setOnAction(e -> {
             Question selected = questionList.getSelectionModel().getSelectedItem();
-            if (selected == null || selected.getTitle().startsWith("No ")) {
+            if (selected == null || selected.getId() < 0) {
                 showAlert("No Selection", "Please select a valid question to delete.");
                 return;
             }
 
             //   author or staff/admin/instructor can delete
-            if (!privileges.canModifyQuestion(selected.getAuthor())) {
+            if (!canModify(selected.getAuthor())) {
                 showAlert("Permission Denied", "You can only delete your own question or be Staff/Admin/Instructor.");
                 return;
             }
@@ -127,57 +170,54 @@ public class QuestionPage {
             confirm.setContentText(selected.getTitle());
             confirm.showAndWait().ifPresent(response -> {
                 if (response == ButtonType.OK) {
-                    manager.deleteQuestion(selected.getTitle());
-                    showAlert("Deleted", "Question deleted successfully.");
-                    refreshList(questionList);
+                    db.async().supply(() -> manager.deleteQuestion(selected))
+                            .whenCompleteAsync((ok, err) -> {
+                                if (err != null || !ok) {
+                                    showAlert("Error", "Could not delete this question.");
+                                    return;
+                                }
+                                showAlert("Deleted", "Question deleted successfully.");
+                                showAll(questionList);
+                            }, Platform::runLater);
                 }
             });
         });
 
         // this shows us all Q's submitted
-        showBtn.setOnAction(e -> refreshList(questionList));
+        showBtn.setOnAction(e -> showAll(questionList));
 
         // question search 'engine'
+        // results replace the scrolling list until Show All is pressed
         searchBtn.setOnAction(e -> {
             String key = searchField.getText().trim();
-            questionList.getItems().clear();
 
             if (key.isEmpty()) {
                 showAlert("Missing Keyword", "Please enter a keyword to search.");
                 return;
             }
 
-            ArrayList<Question> results = manager.search(key);
-            if (results.isEmpty()) {
-                questionList.getItems().add(new Question("No results found.", "", ""));
-            } else {
-                questionList.getItems().addAll(results);
-            }
+            db.async().supply(() -> manager.search(key)).whenCompleteAsync((results, err) -> {
+                if (err != null) {
+                    showAlert("Error", "Search failed: " + err.getMessage());
+                } else if (results.isEmpty()) {
+                    questionList.setItems(FXCollections.observableArrayList(new Question("No results found.", "", "")));
+                    countLabel.setText("0 results");
+                } else {
+                    questionList.setItems(FXCollections.observableArrayList(results));
+                    countLabel.setText(results.size() + " results");
+                }
+            }, Platform::runLater);
         });
 
         //  this is to view and see replies
         viewRepliesBtn.setOnAction(e -> {
             Question selected = questionList.getSelectionModel().getSelectedItem();
-            if (selected == null || selected.getTitle().startsWith("No ")) {
+            if (selected == null || selected.getId() < 0) {
                 showAlert("No Selection", "Please select a question to view replies.");
                 return;
             }
 
-            int qid = -1;
-            var all = db.getAllQuestions();
-            for (String[] q : all) {
-                if (q[2].equals(selected.getTitle()) && q[1].equals(selected.getAuthor())) {
-                    qid = Integer.parseInt(q[0]);
-                    break;
-                }
-            }
-
-            if (qid == -1) {
-                showAlert("Error", "Could not find this question in the database.");
-                return;
-            }
-
-            new AnswerPage(db, qid, selected.getTitle(), username).show();
+            new AnswerPage(db, selected.getId(), selected.getTitle(), username).show();
         });
 
         // ui layout for replies,search,butns, delete,add,view and so on
@@ -191,7 +231,7 @@ public class QuestionPage {
                 new Label("Body:"), bodyArea,
                 topButtons,
                 new Label("Search:"), searchBox,
-                new Label("Questions:"), questionList
+                new Label("Questions:"), questionList, countLabel
         );
 
         Scene scene = new Scene(root, 650, 600);
@@ -199,17 +239,26 @@ public class QuestionPage {
         stage.setScene(scene);
         stage.show();
 
-        refreshList(questionList);
+        showAll(questionList);
     }
 
-    private void refreshList(ListView<Question> listView) {
-        listView.getItems().clear();
-        ArrayList<Question> all = manager.getAllQuestions();
-        if (all.isEmpty()) {
-            listView.getItems().add(new Question("No questions yet.", "", ""));
-        } else {
-            listView.getItems().addAll(all);
+    // back to the scrolling list of every question, recounted so adds and deletes show up
+    private void showAll(ListView<Question> listView) {
+        if (listView.getItems() != allQuestions) {
+            listView.setItems(allQuestions);
         }
+        allQuestions.reload().whenCompleteAsync((count, err) -> {
+            if (err != null) {
+                showAlert("Error", "Could not load questions: " + err.getMessage());
+                return;
+            }
+            countLabel.setText(count + " questions");
+        }, Platform::runLater);
+    }
+
+    // until the privileges have loaded only the author may edit or delete
+    private boolean canModify(String author) {
+        return privileges != null ? privileges.canModifyQuestion(author) : author.equalsIgnoreCase(username);
     }
 
     private void showAlert(String title, String msg) {
@@ -9,8 +9,8 @@ import javafx.stage.Stage;
 
 /**
  * The StaffHomePage class represents the home interface for staff or instructors.
- * It provides navigation options for staff users, such as accessing the Q&A portal
- * or logging out of the application.
+ * It provides navigation options for staff users, such as accessing the Q&A portal,
+ * working through the triage queue of questions that still need help, or logging out.
  */
 public class StaffHomePage {
 
@@ -38,7 +38,7 @@ public class StaffHomePage {
 
     /**
      * Displays the staff home page on the given stage.
-     * Provides buttons to navigate to the Q&A portal or log out.
+     * Provides buttons to navigate to the Q&A portal, the triage queue or log out.
      *
      * @param unused  (Unused parameter) kept for consistency with other page methods
      */
@@ -55,6 +55,14 @@ public class StaffHomePage {
             qPage.openPage();
         });
 
+        // Button to open the queue of unanswered and unsolved questions
+        Button btnTriage = new Button("Open Triage Queue");
+        btnTriage.setOnAction(e -> {
+            // Create and open the TriageQueuePage for the current user
+            TriageQueuePage tPage = new TriageQueuePage(db, username);
+            tPage.openPage();
+        });
+
         // Button to log out and return to the welcome/login page
         Button btnLogout = new Button("Logout");
         btnLogout.setOnAction(e -> {
@@ -64,7 +72,7 @@ public class StaffHomePage {
         });
 
         // Layout container for all UI elements, with 15px spacing
-        VBox root = new VBox(15, lblTitle, btnQnA, btnLogout);
+        VBox root = new VBox(15, lblTitle, btnQnA, btnTriage, btnLogout);
         root.setPadding(new Insets(20));             // Add padding around content
         root.setStyle("-fx-alignment: center;");     // Center all components in layout
 
@@ -0,0 +1,50 @@
+package application;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javafx.scene.chart.XYChart;
+
+// fixed-size ring of samples, one per tick. once it is full the oldest sample is overwritten,
+// so a dashboard can run all day in the same memory. only touched from the fx thread
+class TimeSeries {
+
+    private final String name;
+    private final double[] values;
+    private int next;
+    private int size;
+
+    TimeSeries(String name, int capacity) {
+        this.name = name;
+        this.values = new double[capacity];
+    }
+
+    void add(double value) {
+        values[next] = value;
+        next = (next + 1) % values.length;
+        if (size < values.length) size++;
+    }
+
+    // i = 0 is the oldest sample still kept
+    double get(int i) {
+        return values[(next - size + i + values.length) % values.length];
+    }
+
+    int size() {
+        return size;
+    }
+
+    double latest() {
+        return size == 0 ? 0 : get(size - 1);
+    }
+
+    // the samples as chart points, x is seconds before now so the newest point sits at 0
+    void copyTo(XYChart.Series<Number, Number> series) {
+        List<XYChart.Data<Number, Number>> points = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            points.add(new XYChart.Data<>(i - size + 1, get(i)));
+        }
+        series.setName(name);
+        series.getData().setAll(points);
+    }
+}
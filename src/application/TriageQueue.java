@@ -0,0 +1,144 @@
+package application;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import databasePart1.DatabaseHelper;
+import databasePart1.QuestionChangeListener;
+import databasePart1.QuestionSummary;
+import databasePart1.TriageOrder;
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+
+// the staff triage queue as a list that keeps itself current. pages come from
+// DatabaseHelper.getTriageQueue, and after that every saved answer, accept or question edit only
+// reads back the questions it touched and moves, adds or drops those rows.
+// the list always holds the front of the queue with no gaps: a question that now sorts past the
+// last loaded row is left for the next loadMore.
+// everything here runs on the fx thread except questionsChanged
+class TriageQueue implements QuestionChangeListener {
+
+    static final int PAGE_SIZE = 50;
+
+    private final DatabaseHelper db;
+    private final ObservableList<QuestionSummary> items = FXCollections.observableArrayList();
+    private TriageOrder order = TriageOrder.UNANSWERED;
+    // every question in the queue is loaded, so a changed one can go anywhere, even last
+    private boolean complete;
+    // bumped by reload so pages for an older order are dropped
+    private int generation;
+
+    // questions written since the last refresh, filled on the writing threads
+    private final Set<Integer> changed = new HashSet<>();
+    private boolean refreshing;
+
+    TriageQueue(DatabaseHelper db) {
+        this.db = db;
+    }
+
+    ObservableList<QuestionSummary> getItems() {
+        return items;
+    }
+
+    TriageOrder getOrder() {
+        return order;
+    }
+
+    boolean isComplete() {
+        return complete;
+    }
+
+    // follow the writes while the queue is on screen
+    void start() {
+        db.addQuestionChangeListener(this);
+    }
+
+    void stop() {
+        db.removeQuestionChangeListener(this);
+    }
+
+    // the first page in the given order, returns the number of rows shown
+    CompletableFuture<Integer> reload(TriageOrder newOrder) {
+        order = newOrder;
+        int gen = ++generation;
+        return db.async().supply(() -> db.getTriageQueue(newOrder, null, PAGE_SIZE)).thenApplyAsync(rows -> {
+            if (gen != generation) return items.size();
+            complete = rows.size() < PAGE_SIZE;
+            items.setAll(rows);
+            return items.size();
+        }, Platform::runLater);
+    }
+
+    // the page after the last loaded row, returns the number of rows added
+    CompletableFuture<Integer> loadMore() {
+        if (complete) return CompletableFuture.completedFuture(0);
+        int gen = generation;
+        TriageOrder current = order;
+        QuestionSummary after = items.isEmpty() ? null : items.get(items.size() - 1);
+        return db.async().supply(() -> db.getTriageQueue(current, after, PAGE_SIZE)).thenApplyAsync(rows -> {
+            if (gen != generation) return 0;
+            complete = rows.size() < PAGE_SIZE;
+            // a row a refresh already put in place is not added twice
+            Set<Integer> loaded = new HashSet<>();
+            for (QuestionSummary s : items) loaded.add(s.qid());
+            List<QuestionSummary> added = new ArrayList<>();
+            for (QuestionSummary s : rows) {
+                if (!loaded.contains(s.qid())) added.add(s);
+            }
+            items.addAll(added);
+            return added.size();
+        }, Platform::runLater);
+    }
+
+    @Override
+    public void questionsChanged(Set<Integer> qids) {
+        boolean idle;
+        synchronized (changed) {
+            changed.addAll(qids);
+            idle = !refreshing;
+            refreshing = true;
+        }
+        if (idle) refreshNext();
+    }
+
+    // one refresh at a time, so an older read of a question can never land after a newer one.
+    // writes that arrive meanwhile are read together by the next round
+    private void refreshNext() {
+        List<Integer> qids;
+        synchronized (changed) {
+            if (changed.isEmpty()) {
+                refreshing = false;
+                return;
+            }
+            qids = new ArrayList<>(changed);
+            changed.clear();
+        }
+        db.async().supply(() -> db.getQuestionSummaries(qids)).whenCompleteAsync((rows, err) -> {
+            if (err == null) apply(qids, rows);
+            refreshNext();
+        }, Platform::runLater);
+    }
+
+    // swaps the changed questions for what they look like now. a question that is gone from the
+    // table or no longer belongs in this queue, e.g. just solved, is only removed
+    private void apply(Collection<Integer> qids, List<QuestionSummary> rows) {
+        Set<Integer> ids = new HashSet<>(qids);
+        items.removeIf(s -> ids.contains(s.qid()));
+        Comparator<QuestionSummary> comparator = order.comparator();
+        for (QuestionSummary row : rows) {
+            if (!order.includes(row)) continue;
+            int at = Collections.binarySearch(items, row, comparator);
+            if (at >= 0) continue;
+            at = -at - 1;
+            if (at == items.size() && !complete) continue;
+            items.add(at, row);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package application;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import databasePart1.DatabaseHelper;
+import databasePart1.QuestionSummary;
+import databasePart1.TriageOrder;
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
+import javafx.geometry.Insets;
+import javafx.scene.Scene;
+import javafx.scene.control.*;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.VBox;
+import javafx.stage.Stage;
+
+// staff window with the questions that still need help, unanswered or unsolved.
+// the list follows new questions, replies and accepts as they are saved, see TriageQueue
+
+public class TriageQueuePage {
+
+    private final DatabaseHelper db;
+    private final String username;
+    private final TriageQueue queue;
+    private Label statusLabel;
+    private Button moreBtn;
+
+    public TriageQueuePage(DatabaseHelper db, String username) {
+        this.db = db;
+        this.username = username;
+        this.queue = new TriageQueue(db);
+    }
+
+    public void openPage() {
+        Stage stage = new Stage();
+        VBox root = new VBox(10);
+        root.setPadding(new Insets(12));
+
+        Label titleLabel = new Label("Triage Queue");
+        titleLabel.setStyle("-fx-font-size: 18; -fx-font-weight: bold;");
+
+        ComboBox<TriageOrder> orderBox = new ComboBox<>(FXCollections.observableArrayList(TriageOrder.values()));
+        orderBox.setValue(queue.getOrder());
+
+        // one fixed row height like the question list
+        ListView<QuestionSummary> queueList = new ListView<>(queue.getItems());
+        queueList.setPrefHeight(350);
+        queueList.setFixedCellSize(24);
+        queueList.setPlaceholder(new Label("Nothing is waiting for an answer."));
+        queueList.setCellFactory(lv -> new ListCell<>() {
+            @Override
+            protected void updateItem(QuestionSummary s, boolean empty) {
+                super.updateItem(s, empty);
+                if (empty || s == null) {
+                    setText(null);
+                } else {
+                    setText(s.title() + " — by " + s.username() + "   (waiting " + age(s.createdAt()) + ", "
+                            + s.answerCount() + (s.answerCount() == 1 ? " reply)" : " replies)"));
+                }
+            }
+        });
+
+        statusLabel = new Label();
+        moreBtn = new Button("Load More");
+        Button refreshBtn = new Button("Refresh");
+        Button viewRepliesBtn = new Button("View Replies");
+
+        // the label and button follow the list, including rows moved by answers saved elsewhere
+        queue.getItems().addListener((ListChangeListener<QuestionSummary>) c -> updateStatus());
+
+        orderBox.setOnAction(e -> reload(orderBox.getValue()));
+        refreshBtn.setOnAction(e -> reload(orderBox.getValue()));
+
+        moreBtn.setOnAction(e -> {
+            moreBtn.setDisable(true);
+            queue.loadMore().whenCompleteAsync((added, err) -> {
+                if (err != null) showAlert("Could not load more questions: " + err.getMessage());
+                updateStatus();
+            }, Platform::runLater);
+        });
+
+        viewRepliesBtn.setOnAction(e -> {
+            QuestionSummary selected = queueList.getSelectionModel().getSelectedItem();
+            if (selected == null) {
+                showAlert("Please select a question to view replies.");
+                return;
+            }
+            new AnswerPage(db, selected.qid(), selected.title(), username).show();
+        });
+
+        HBox controls = new HBox(10, new Label("Show:"), orderBox, refreshBtn);
+        HBox buttons = new HBox(10, viewRepliesBtn, moreBtn);
+        root.getChildren().addAll(titleLabel, controls, queueList, statusLabel, buttons);
+
+        // stop following writes once the window is gone
+        stage.setOnHidden(e -> queue.stop());
+        queue.start();
+
+        stage.setTitle("Triage Queue — " + username);
+        stage.setScene(new Scene(root, 650, 520));
+        stage.show();
+
+        reload(orderBox.getValue());
+    }
+
+    private void reload(TriageOrder order) {
+        moreBtn.setDisable(true);
+        queue.reload(order).whenCompleteAsync((count, err) -> {
+            if (err != null) showAlert("Could not load the queue: " + err.getMessage());
+            updateStatus();
+        }, Platform::runLater);
+    }
+
+    private void updateStatus() {
+        int shown = queue.getItems().size();
+        statusLabel.setText(queue.isComplete() ? shown + " questions waiting" : shown + " shown, more below");
+        moreBtn.setDisable(queue.isComplete());
+    }
+
+    // how long a question has been open, in the biggest unit that fits
+    private static String age(Instant created) {
+        if (created == null) return "?";
+        long minutes = Math.max(0, Duration.between(created, Instant.now()).toMinutes());
+        if (minutes < 60) return minutes + " min";
+        if (minutes < 48 * 60) return minutes / 60 + " h";
+        return minutes / (24 * 60) + " d";
+    }
+
+    private void showAlert(String msg) {
+        Alert a = new Alert(Alert.AlertType.INFORMATION);
+        a.setTitle("Info");
+        a.setHeaderText(null);
+        a.setContentText(msg);
+        a.showAndWait();
+    }
+}
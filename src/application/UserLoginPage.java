@@ -1,5 +1,6 @@
 package application;
 
+import javafx.application.Platform;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
@@ -32,27 +33,21 @@ public class UserLoginPage {
             String uname = usernameField.getText();
             String pw = passwordField.getText();
 
-            if (db.login(uname, pw)) {
-                try {
-                    List<String> roles = db.getUserRoles(uname);
-                    System.out.println("DEBUG roles for " + uname + ": " + roles);
-                    if (roles.size() == 1) {
-                        String role = roles.get(0);
-                        if (role.equalsIgnoreCase("admin")) {
-                            new AdminHomePage(db).show(stage);
+            // check the password and load the roles off the fx thread, null means bad login
+            loginBtn.setDisable(true);
+            message.setText("Signing in...");
+            db.async().supply(() -> db.login(uname, pw) ? db.getUserRoles(uname) : null)
+                    .whenCompleteAsync((roles, err) -> {
+                        loginBtn.setDisable(false);
+                        message.setText("");
+                        if (err != null) {
+                            message.setText("Error loading roles: " + err.getMessage());
+                        } else if (roles == null) {
+                            message.setText("Invalid username or password.");
                         } else {
-                            //   this redirects us internally (db side)
-                            new MockRolePage(stage, db, uname, role);
+                            openHome(stage, uname, roles, message);
                         }
-                    } else {
-                        new RoleSelectionPage(db, uname).show(stage);
-                    }
-                } catch (Exception ex) {
-                    message.setText("Error loading roles: " + ex.getMessage());
-                }
-            } else {
-                message.setText("Invalid username or password.");
-            }
+                    }, Platform::runLater);
         });
 
         // new forgot password button
@@ -68,4 +63,24 @@ public class UserLoginPage {
         stage.setTitle("Login");
         stage.show();
     }
+
+    // send the user to the page for their role
+    private void openHome(Stage stage, String uname, List<String> roles, Label message) {
+        try {
+            System.out.println("DEBUG roles for " + uname + ": " + roles);
+            if (roles.size() == 1) {
+                String role = roles.get(0);
+                if (role.equalsIgnoreCase("admin")) {
+                    new AdminHomePage(db).show(stage);
+                } else {
+                    //   this redirects us internally (db side)
+                    new MockRolePage(stage, db, uname, role);
+                }
+            } else {
+                new RoleSelectionPage(db, uname).show(stage);
+            }
+        } catch (Exception ex) {
+            message.setText("Error loading roles: " + ex.getMessage());
+        }
+    }
 }
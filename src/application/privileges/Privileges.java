@@ -1,49 +1,39 @@
 package application.privileges;
 
 import databasePart1.DatabaseHelper;
-import java.util.List;
+import databasePart1.Role;
 
 public class Privileges {
 
     private final DatabaseHelper db;
     private final String username;
-    private final List<String> roles;
+    // the user's ROLE_BITS, read once here so every check is a single and
+    private final int roles;
 
     public Privileges(DatabaseHelper db, String username) {
         this.db = db;
         this.username = username;
-        this.roles = db.getUserRoles(username);
+        this.roles = db.getRoleMask(username);
     }
 
-    private boolean hasRole(String... roleNames) {
-        if (roles == null) return false;
-        for (String userRole : roles) {
-            if (userRole == null) continue;
-            String normalized = userRole.trim().toLowerCase();
-            for (String target : roleNames) {
-                if (normalized.equals(target.toLowerCase()) ||
-                        normalized.contains(target.toLowerCase())) {
-                    return true;
-                }
-            }
-        }
-        return false;
+    private boolean hasAny(int bits) {
+        return (roles & bits) != 0;
     }
 
     public boolean isAdmin() {
-        return hasRole("admin", "administrator");
+        return hasAny(Role.ADMIN.bit());
     }
 
     public boolean isStaff() {
-        return hasRole("staff");
+        return hasAny(Role.STAFF.bit());
     }
 
     public boolean isInstructor() {
-        return hasRole("instructor", "teacher");
+        return hasAny(Role.INSTRUCTOR.bit());
     }
 
     public boolean isPrivilegedUser() {
-        return isAdmin() || isStaff() || isInstructor();
+        return hasAny(Role.PRIVILEGED);
     }
 
     public boolean canModifyQuestion(String author) {
@@ -0,0 +1,23 @@
+package databasePart1;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+
+// one row of ANSWERS
+public record AnswerRow(int aid, int qid, String username, String body, boolean accepted, Instant createdAt) {
+
+    static final String COLUMNS = "AID, QID, USERNAME, BODY, IS_ACCEPTED, CREATED_AT";
+
+    static AnswerRow map(ResultSet rs) throws SQLException {
+        Timestamp created = rs.getTimestamp(6);
+        return new AnswerRow(
+                rs.getInt(1),
+                rs.getInt(2),
+                rs.getString(3),
+                rs.getString(4),
+                rs.getBoolean(5),
+                created == null ? null : created.toInstant());
+    }
+}
@@ -0,0 +1,123 @@
+package databasePart1;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// async front for DatabaseHelper so the javafx thread never waits on h2.
+// every call runs on its own virtual thread and hands back a CompletableFuture;
+// pages finish the work on the fx thread with e.g. whenCompleteAsync(..., Platform::runLater).
+// cancelling a future, or letting it time out, cancels the statement the call is executing
+// (see CancelScope). the thread itself is never interrupted, h2 does not survive that.
+public class AsyncDatabaseHelper implements AutoCloseable {
+
+    // longer than the h2 LOCK_TIMEOUT so a lock wait surfaces as h2's error, not ours
+    public static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(15);
+
+    private final DatabaseHelper db;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    // calls that have not finished yet, close cancels their statements
+    private final Set<CancelScope> running = ConcurrentHashMap.newKeySet();
+
+    public AsyncDatabaseHelper(DatabaseHelper db) {
+        this.db = db;
+    }
+
+    // run any piece of database work off the caller's thread
+    public <T> CompletableFuture<T> supply(Supplier<T> work) {
+        return supply(work, DEFAULT_TIMEOUT);
+    }
+
+    public <T> CompletableFuture<T> supply(Supplier<T> work, Duration timeout) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        CancelScope scope = new CancelScope();
+        running.add(scope);
+        try {
+            executor.execute(() -> {
+                scope.enter();
+                try {
+                    result.complete(work.get());
+                } catch (Throwable t) {
+                    result.completeExceptionally(t);
+                } finally {
+                    scope.exit();
+                    running.remove(scope);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            running.remove(scope);
+            result.completeExceptionally(e);
+            return result;
+        }
+        result.orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        // timeouts and cancels stop the query too, for normal completion this is a no-op
+        result.whenComplete((value, error) -> {
+            if (error != null) scope.cancel();
+        });
+        return result;
+    }
+
+    public CompletableFuture<Void> run(Runnable work) {
+        return supply(() -> {
+            work.run();
+            return null;
+        });
+    }
+
+    // the calls the pages make most often
+
+    public CompletableFuture<Boolean> login(String username, String password) {
+        return supply(() -> db.login(username, password));
+    }
+
+    public CompletableFuture<List<String>> getUserRoles(String username) {
+        return supply(() -> db.getUserRoles(username));
+    }
+
+    public CompletableFuture<List<AnswerRow>> getAnswers(int qid) {
+        return supply(() -> db.getAnswers(qid));
+    }
+
+    public CompletableFuture<Boolean> addAnswer(int qid, String username, String body) {
+        return supply(() -> db.addAnswer(qid, username, body));
+    }
+
+    public CompletableFuture<Boolean> deleteAnswer(int aid) {
+        return supply(() -> db.deleteAnswer(aid));
+    }
+
+    public CompletableFuture<Boolean> markAnswerAccepted(int aid) {
+        return supply(() -> db.markAnswerAccepted(aid));
+    }
+
+    public CompletableFuture<String> generateInvitationCode() {
+        return supply(db::generateInvitationCode);
+    }
+
+    public CompletableFuture<List<String>> generateInvitationCodes(int count) {
+        return supply(() -> db.generateInvitationCodes(count));
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+        for (CancelScope scope : running) {
+            scope.cancel();
+        }
+        try {
+            // cancelled statements return within a moment, then the pool can close under them
+            if (!executor.awaitTermination(DEFAULT_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)) {
+                System.err.println("Async database calls still running at close");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package databasePart1;
+
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// the statements one async call is executing right now, so a timeout or cancel can stop them
+// with Statement.cancel. interrupting the thread instead would hit it inside h2's file io,
+// which closes the channel (ClosedByInterruptException) and can take the whole database down.
+// AsyncDatabaseHelper opens a scope per call; StatementCache registers each execute with it
+class CancelScope {
+
+    private static final ThreadLocal<CancelScope> CURRENT = new ThreadLocal<>();
+
+    // guarded by this
+    private final Set<Statement> running = new HashSet<>();
+    private boolean cancelled;
+
+    // the scope of the call running on this thread, or null outside AsyncDatabaseHelper
+    static CancelScope current() {
+        return CURRENT.get();
+    }
+
+    void enter() {
+        CURRENT.set(this);
+    }
+
+    void exit() {
+        CURRENT.remove();
+    }
+
+    // once cancelled every further execute fails right away, so the call winds down quickly
+    synchronized void started(Statement statement) throws SQLException {
+        if (cancelled) throw new SQLTimeoutException("Query was cancelled");
+        running.add(statement);
+    }
+
+    synchronized void finished(Statement statement) {
+        running.remove(statement);
+    }
+
+    void cancel() {
+        List<Statement> toCancel;
+        synchronized (this) {
+            if (cancelled) return;
+            cancelled = true;
+            toCancel = new ArrayList<>(running);
+        }
+        for (Statement s : toCancel) {
+            try {
+                s.cancel();
+            } catch (SQLException e) {
+                // already finished or closed, nothing left to stop
+            }
+        }
+    }
+}
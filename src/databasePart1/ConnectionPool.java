@@ -0,0 +1,332 @@
+package databasePart1;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// small bounded connection pool that sits behind DatabaseHelper.
+// callers borrow with getConnection() and give the connection back by closing it,
+// so the normal try-with-resources jdbc pattern is all a method needs.
+public final class ConnectionPool implements AutoCloseable {
+
+    // how long a caller waits for a free connection before we give up
+    private static final long BORROW_TIMEOUT_MS = 10_000;
+    // a connection held longer than this is reported as a possible leak
+    private static final long LEAK_THRESHOLD_MS = 30_000;
+    // idle connections above the minimum are closed after this long
+    private static final long IDLE_TIMEOUT_MS = 60_000;
+    // connections idle longer than this are validated before being handed out
+    private static final long VALIDATE_AFTER_MS = 5_000;
+    private static final long HOUSEKEEPING_PERIOD_MS = 5_000;
+    // prepared statements kept open per connection
+    private static final int STATEMENT_CACHE_SIZE = 64;
+    // -Dcse360.pool.traceBorrows=true keeps the borrower's stack for every getConnection, so a
+    // leak report shows where the connection was taken. off by default, a stack per borrow is
+    // too dear on the request path; without it the report shows where the borrower is now
+    private static final boolean TRACE_BORROWS = Boolean.getBoolean("cse360.pool.traceBorrows");
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int maxSize;
+    private final int minIdle;
+    private final SlowQueryLog slowQueryLog;
+
+    private final Semaphore permits;
+    private final Deque<PooledEntry> idle = new ArrayDeque<>();
+    private final Map<PooledEntry, Boolean> leased = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed;
+
+    private final LongAdder statementCacheHits = new LongAdder();
+    private final LongAdder statementCacheMisses = new LongAdder();
+
+    public ConnectionPool(String url, String user, String password, int maxSize) {
+        this(url, user, password, maxSize, null);
+    }
+
+    // slowQueryLog may be null, otherwise every pooled prepared statement reports to it
+    public ConnectionPool(String url, String user, String password, int maxSize, SlowQueryLog slowQueryLog) {
+        this.slowQueryLog = slowQueryLog;
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.maxSize = maxSize;
+        this.minIdle = Math.min(2, maxSize);
+        this.permits = new Semaphore(maxSize, true);
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "db-pool-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+        housekeeper.scheduleWithFixedDelay(this::housekeeping,
+                HOUSEKEEPING_PERIOD_MS, HOUSEKEEPING_PERIOD_MS, TimeUnit.MILLISECONDS);
+    }
+
+    // borrow a connection, close() on the returned object gives it back to the pool
+    public Connection getConnection() throws SQLException {
+        if (closed) throw new SQLException("Connection pool is closed");
+        try {
+            if (!permits.tryAcquire(BORROW_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                throw new SQLException("Timed out waiting for a database connection (pool size " + maxSize + ")");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+
+        try {
+            PooledEntry entry = takeHealthyIdle();
+            if (entry == null) {
+                entry = new PooledEntry(DriverManager.getConnection(url, user, password));
+            }
+            entry.borrowedAt = System.currentTimeMillis();
+            entry.borrower = Thread.currentThread();
+            entry.borrowTrace = TRACE_BORROWS
+                    ? new Throwable("Connection borrowed by " + entry.borrower.getName()) : null;
+            entry.leakReported = false;
+            leased.put(entry, Boolean.TRUE);
+            return entry.newHandle();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    // most recently used first so the hot connections stay warm
+    private PooledEntry takeHealthyIdle() {
+        while (true) {
+            PooledEntry entry;
+            synchronized (idle) {
+                entry = idle.pollFirst();
+            }
+            if (entry == null) return null;
+            if (entry.isHealthy()) return entry;
+            entry.closePhysical();
+        }
+    }
+
+    private void release(PooledEntry entry) {
+        leased.remove(entry);
+        entry.borrower = null;
+        entry.borrowTrace = null;
+        try {
+            if (!closed && entry.resetForReuse()) {
+                entry.lastUsed = System.currentTimeMillis();
+                synchronized (idle) {
+                    idle.offerFirst(entry);
+                }
+            } else {
+                entry.closePhysical();
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    // leak detection and idle eviction, runs on the housekeeper thread
+    private void housekeeping() {
+        housekeeping(System.currentTimeMillis());
+    }
+
+    // now is a parameter so tests can look minutes ahead without waiting for them
+    void housekeeping(long now) {
+        for (PooledEntry entry : leased.keySet()) {
+            if (!entry.leakReported && now - entry.borrowedAt > LEAK_THRESHOLD_MS) {
+                entry.leakReported = true;
+                reportLeak(entry, now);
+            }
+        }
+
+        synchronized (idle) {
+            // oldest entries sit at the tail
+            Iterator<PooledEntry> it = idle.descendingIterator();
+            while (it.hasNext() && idle.size() > minIdle) {
+                PooledEntry entry = it.next();
+                if (now - entry.lastUsed > IDLE_TIMEOUT_MS) {
+                    it.remove();
+                    entry.closePhysical();
+                }
+            }
+        }
+    }
+
+    private static void reportLeak(PooledEntry entry, long now) {
+        Thread borrower = entry.borrower;
+        Throwable trace = entry.borrowTrace;
+        if (borrower == null) return;   // given back while we looked
+        System.err.println("Possible connection leak: held for " + (now - entry.borrowedAt) + " ms by "
+                + borrower.getName());
+        if (trace != null) {
+            trace.printStackTrace();
+            return;
+        }
+        for (StackTraceElement frame : borrower.getStackTrace()) {
+            System.err.println("\tat " + frame);
+        }
+    }
+
+    public int getMaxSize() { return maxSize; }
+
+    public int getActiveCount() { return leased.size(); }
+
+    public int getIdleCount() {
+        synchronized (idle) {
+            return idle.size();
+        }
+    }
+
+    // borrowed connections held past the leak threshold, each one was reported once
+    int getSuspectedLeakCount() {
+        int n = 0;
+        for (PooledEntry entry : leased.keySet()) {
+            if (entry.leakReported) n++;
+        }
+        return n;
+    }
+
+    // number of callers currently blocked waiting for a connection
+    public int getWaitingCount() { return permits.getQueueLength(); }
+
+    public long getStatementCacheHits() { return statementCacheHits.sum(); }
+
+    public long getStatementCacheMisses() { return statementCacheMisses.sum(); }
+
+    @Override
+    public void close() {
+        closed = true;
+        housekeeper.shutdownNow();
+        synchronized (idle) {
+            for (PooledEntry entry : idle) {
+                entry.closePhysical();
+            }
+            idle.clear();
+        }
+    }
+
+    // one physical connection plus the bookkeeping the pool needs for it
+    private final class PooledEntry {
+        private final Connection physical;
+        private final StatementCache statements;
+        private volatile long lastUsed = System.currentTimeMillis();
+        private volatile long borrowedAt;
+        private volatile Thread borrower;
+        // only with TRACE_BORROWS
+        private volatile Throwable borrowTrace;
+        private volatile boolean leakReported;
+
+        PooledEntry(Connection physical) throws SQLException {
+            this.physical = physical;
+            this.statements = new StatementCache(physical, STATEMENT_CACHE_SIZE,
+                    statementCacheHits, statementCacheMisses, slowQueryLog);
+            physical.setAutoCommit(true);
+        }
+
+        boolean isHealthy() {
+            try {
+                if (physical.isClosed()) return false;
+                if (System.currentTimeMillis() - lastUsed < VALIDATE_AFTER_MS) return true;
+                return physical.isValid(2);
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+
+        // undo anything a borrower left behind, false means the connection should be dropped
+        boolean resetForReuse() {
+            try {
+                if (physical.isClosed()) return false;
+                if (!physical.getAutoCommit()) {
+                    physical.rollback();
+                    physical.setAutoCommit(true);
+                }
+                return true;
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+
+        // cached statements go with the connection they were prepared on
+        void closePhysical() {
+            statements.closeAll();
+            try {
+                physical.close();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+
+        Connection newHandle() {
+            return (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    new Handle(this));
+        }
+    }
+
+    // what borrowers actually hold: closing it returns the connection instead of closing it
+    private final class Handle implements InvocationHandler {
+        private final PooledEntry entry;
+        private boolean returned;
+
+        Handle(PooledEntry entry) {
+            this.entry = entry;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!returned) {
+                        returned = true;
+                        release(entry);
+                    }
+                    return null;
+                case "isClosed":
+                    return returned || entry.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled[" + entry.physical + "]";
+                default:
+                    break;
+            }
+            if (returned) {
+                throw new SQLException("Connection has already been returned to the pool");
+            }
+            // plain prepareStatement(sql) and prepareStatement(sql, autoGeneratedKeys) go through the cache
+            if (method.getName().equals("prepareStatement")) {
+                Class<?>[] types = method.getParameterTypes();
+                if (types.length == 1) {
+                    return entry.statements.prepare((Connection) proxy, (String) args[0], Statement.NO_GENERATED_KEYS);
+                }
+                if (types.length == 2 && types[1] == int.class) {
+                    return entry.statements.prepare((Connection) proxy, (String) args[0], (Integer) args[1]);
+                }
+            }
+            try {
+                return method.invoke(entry.physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
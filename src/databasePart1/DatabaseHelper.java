@@ -4,261 +4,714 @@
 
 package databasePart1;
 
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.UUID;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.ToIntFunction;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 
 // this class is for handling the database
 public class DatabaseHelper {
-    private Connection conn;
+    // every method borrows its own connection, so the helper can be shared across threads
+    private ConnectionPool pool;
+
+    // new questions and answers are written in group commits, see WriteBatcher
+    private WriteBatcher writeBatcher;
+    private static final int WRITE_BATCH_SIZE = 256;
+    private static final long WRITE_BATCH_DELAY_MS = 2;
+    // longest addQuestion / addAnswer wait for their group commit
+    private static final long WRITE_WAIT_MS = 15_000;
+
+    // ranked search over question titles and bodies, filled from the table on first search
+    // and kept in step with every question write after that
+    private final QuestionIndex searchIndex = new QuestionIndex();
+    private volatile boolean searchIndexLoaded;
+    // held only by the thread building the index, so writers never wait for a build
+    private final Object searchIndexLoad = new Object();
+    // index writes that arrive during the build, replayed on top of it. null when no build runs,
+    // guarded by searchIndex
+    private List<Runnable> searchIndexPending;
+
+    // most results a search returns
+    private static final int SEARCH_LIMIT = 50;
+
+    // roles per username, every write to ROLES or USERS below invalidates the name it touched
+    private final RoleCache roleCache = new RoleCache(ROLE_CACHE_SIZE);
+    private static final int ROLE_CACHE_SIZE = 10_000;
+
+    // bodies of recently opened questions, the lists only load summaries.
+    // the read path only adds missing entries and writes overwrite them, so a read that
+    // races an edit can never put the old body back
+    private static final int BODY_CACHE_SIZE = 256;
+    private final Map<Integer, String> bodyCache = Collections.synchronizedMap(
+            new LinkedHashMap<Integer, String>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, String> eldest) {
+                    return size() > BODY_CACHE_SIZE;
+                }
+            });
+
+    // screens that keep a list current themselves, see QuestionChangeListener
+    private final List<QuestionChangeListener> changeListeners = new CopyOnWriteArrayList<>();
+
+    // users per transaction in registerAll
+    private static final int IMPORT_CHUNK_SIZE = 1_000;
+
+    // calls, errors, rows and latency per public method, also published over jmx
+    private final DatabaseMetrics metrics = new DatabaseMetrics();
+    private ObjectName metricsName;
+
+    // statements over the threshold, with their plans, see SlowQueryLog
+    private SlowQueryLog slowQueryLog;
+
+    // use a local, cross-platform relative path so it works anywhere
+    // this will create a "database" folder inside your project directory automatically
+    public static final String DEFAULT_DB_PATH = "./database/cse360db";
 
     public DatabaseHelper() {
+        this(DEFAULT_DB_PATH);
+    }
+
+    // a database somewhere else, e.g. a throwaway file for benchmarks
+    public DatabaseHelper(String dbPath) {
         try {
             // load h2 database driver
             Class.forName("org.h2.Driver");
 
-            // use a local, cross-platform relative path so it works anywhere
-            // this will create a "database" folder inside your project directory automatically
-            String dbPath = "./database/cse360db";
-
-            conn = DriverManager.getConnection(
+            // one connection per core is enough for parallel reads, h2 serializes the writes anyway
+            int poolSize = Math.max(4, Runtime.getRuntime().availableProcessors());
+            slowQueryLog = new SlowQueryLog(Path.of(dbPath + "-slow-queries.log"), SlowQueryLog.DEFAULT_THRESHOLD_MS);
+            pool = new ConnectionPool(
                     "jdbc:h2:file:" + dbPath + ";IFEXISTS=FALSE;AUTO_SERVER=TRUE;LOCK_TIMEOUT=10000",
                     "sa",
-                    "Password"
+                    "Password",
+                    poolSize,
+                    slowQueryLog
             );
             System.out.println(" Using database at: " + new java.io.File(dbPath).getAbsolutePath());
 
-            // ensure auto commit enabled for safety
-            conn.setAutoCommit(true);
-
             // make tables if they dont exist
             initializeTables();
+
+            writeBatcher = new WriteBatcher(pool, new WriteBatcher.CommitListener() {
+                @Override
+                public void questionCommitted(int qid, String title, String body) {
+                    indexQuestion(qid, title, body);
+                }
+
+                @Override
+                public void batchCommitted(Set<Integer> qids) {
+                    fireQuestionsChanged(qids);
+                }
+            }, WRITE_BATCH_SIZE, WRITE_BATCH_DELAY_MS);
         } catch (Exception e) {
             e.printStackTrace();
         }
+        registerMetrics(dbPath);
     }
 
-    // helper to force commit changes
-    public void saveChanges() {
+    // one mbean per database file, a second helper on the same file keeps its numbers to itself
+    private void registerMetrics(String dbPath) {
         try {
-            if (conn != null && !conn.isClosed()) {
-                conn.commit();
+            ObjectName name = new ObjectName("databasePart1:type=DatabaseMetrics,path=" + ObjectName.quote(dbPath));
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (!server.isRegistered(name)) {
+                server.registerMBean(metrics, name);
+                metricsName = name;
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
+        } catch (Exception e) {
+            System.out.println(" Database metrics not published over JMX: " + e);
         }
     }
 
-    // creates the tables if missing
-    private void initializeTables() throws SQLException {
-        Statement stmt = conn.createStatement();
+    // shared async facade, created on first use
+    private AsyncDatabaseHelper async;
+
+    // the same helper, but every call runs off the calling thread
+    public synchronized AsyncDatabaseHelper async() {
+        if (async == null) {
+            async = new AsyncDatabaseHelper(this);
+        }
+        return async;
+    }
+
+    // pool stats for anyone who wants to watch utilization
+    public ConnectionPool getPool() {
+        return pool;
+    }
+
+    // per-operation timings, see DatabaseMetrics
+    public DatabaseMetrics getMetrics() {
+        return metrics;
+    }
+
+    // recent slow statements and the threshold for them
+    public SlowQueryLog getSlowQueryLog() {
+        return slowQueryLog;
+    }
+
+    public void addQuestionChangeListener(QuestionChangeListener listener) {
+        changeListeners.add(listener);
+    }
 
-        stmt.execute("CREATE TABLE IF NOT EXISTS USERS (" +
-                "ID INT AUTO_INCREMENT PRIMARY KEY," +
-                "USERNAME VARCHAR(255) UNIQUE," +
-                "PASSWORD VARCHAR(255)," +
-                "EMAIL VARCHAR(255))");
+    public void removeQuestionChangeListener(QuestionChangeListener listener) {
+        changeListeners.remove(listener);
+    }
+
+    // after the commit, a listener that throws does not stop the others or fail the write
+    private void fireQuestionsChanged(Set<Integer> qids) {
+        if (qids.isEmpty()) return;
+        Set<Integer> copy = Set.copyOf(qids);
+        for (QuestionChangeListener l : changeListeners) {
+            try {
+                l.questionsChanged(copy);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    // closes every pooled connection, the helper cannot be used afterwards
+    public void close() {
+        synchronized (this) {
+            if (async != null) {
+                async.close();
+            }
+        }
+        if (writeBatcher != null) {
+            writeBatcher.close();
+        }
+        if (pool != null) {
+            pool.close();
+        }
+        if (metricsName != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(metricsName);
+            } catch (Exception e) {
+                // already gone
+            }
+            metricsName = null;
+        }
+    }
 
-        stmt.execute("CREATE TABLE IF NOT EXISTS ROLES (" +
-                "USERNAME VARCHAR(255)," +
-                "ROLE VARCHAR(255))");
+    // helper to force commit changes when a method runs in its own transaction
+    private void saveChanges(Connection conn) throws SQLException {
+        if (!conn.getAutoCommit()) {
+            conn.commit();
+        }
+    }
+
+    // creates the tables if missing, then brings the schema up to the latest migration
+    private void initializeTables() throws SQLException {
+        try (Connection conn = pool.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS USERS (" +
+                    "ID INT AUTO_INCREMENT PRIMARY KEY," +
+                    "USERNAME VARCHAR(255) UNIQUE," +
+                    "PASSWORD VARCHAR(255)," +
+                    "EMAIL VARCHAR(255))");
 
-        stmt.execute("CREATE TABLE IF NOT EXISTS INVITATIONS (" +
-                "CODE VARCHAR(255) PRIMARY KEY," +
-                "USED BOOLEAN DEFAULT FALSE)");
+            stmt.execute("CREATE TABLE IF NOT EXISTS ROLES (" +
+                    "USERNAME VARCHAR(255)," +
+                    "ROLE VARCHAR(255))");
 
-        // q&a tables for persistent questions and answers
-        stmt.execute("CREATE TABLE IF NOT EXISTS QUESTIONS (" +
-                "QID INT AUTO_INCREMENT PRIMARY KEY," +
-                "USERNAME VARCHAR(255)," +
-                "TITLE VARCHAR(255)," +
-                "BODY VARCHAR(1000)," +
-                "CREATED_AT TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+            stmt.execute("CREATE TABLE IF NOT EXISTS INVITATIONS (" +
+                    "CODE VARCHAR(255) PRIMARY KEY," +
+                    "USED BOOLEAN DEFAULT FALSE)");
 
-        stmt.execute("CREATE TABLE IF NOT EXISTS ANSWERS (" +
-                "AID INT AUTO_INCREMENT PRIMARY KEY," +
-                "QID INT," +
-                "USERNAME VARCHAR(255)," +
-                "BODY VARCHAR(1000)," +
-                "IS_ACCEPTED BOOLEAN DEFAULT FALSE," +
-                "CREATED_AT TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+            // q&a tables for persistent questions and answers
+            stmt.execute("CREATE TABLE IF NOT EXISTS QUESTIONS (" +
+                    "QID INT AUTO_INCREMENT PRIMARY KEY," +
+                    "USERNAME VARCHAR(255)," +
+                    "TITLE VARCHAR(255)," +
+                    "BODY VARCHAR(1000)," +
+                    "CREATED_AT TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
 
-        stmt.close();
+            stmt.execute("CREATE TABLE IF NOT EXISTS ANSWERS (" +
+                    "AID INT AUTO_INCREMENT PRIMARY KEY," +
+                    "QID INT," +
+                    "USERNAME VARCHAR(255)," +
+                    "BODY VARCHAR(1000)," +
+                    "IS_ACCEPTED BOOLEAN DEFAULT FALSE," +
+                    "CREATED_AT TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+        }
+        // indexes, constraints and later schema changes live in SchemaMigrations
+        try (Connection conn = pool.getConnection()) {
+            SchemaMigrations.migrate(conn, metrics);
+        }
     }
 
     // add a new user
     public boolean register(String username, String password, String email) {
-        try (PreparedStatement ps = conn.prepareStatement(
+        long start = DatabaseMetrics.start();
+        try (Connection conn = pool.getConnection();
+             PreparedStatement ps = conn.prepareStatement(
                 "INSERT INTO USERS (USERNAME, PASSWORD, EMAIL) VALUES (?, ?, ?)")) {
             ps.setString(1, username);
             ps.setString(2, password);
             ps.setString(3, email);
             ps.executeUpdate();
-            saveChanges();
+            saveChanges(conn);
+            metrics.success("register", start, 1);
             return true;
         } catch (SQLException e) {
+            metrics.failure("register", start, e);
             return false;
         }
     }
 
+    // bulk register + addRole for imports. every chunk of users goes in as one jdbc batch
+    // inside one transaction. the result has one entry per user: null when the user was
+    // added, otherwise the reason it was not
+    public String[] registerAll(List<NewUser> users) {
+        long start = DatabaseMetrics.start();
+        String[] errors = new String[users.size()];
+        for (int from = 0; from < users.size(); from += IMPORT_CHUNK_SIZE) {
+            registerChunk(users, from, Math.min(users.size(), from + IMPORT_CHUNK_SIZE), errors);
+        }
+        int added = 0;
+        for (String error : errors) {
+            if (error == null) added++;
+        }
+        metrics.success("registerAll", start, added);
+        return errors;
+    }
+
+    private void registerChunk(List<NewUser> users, int from, int to, String[] errors) {
+        try (Connection conn = pool.getConnection()) {
+            // names that are already taken are reported instead of failing the whole chunk
+            String[] names = new String[to - from];
+            for (int i = from; i < to; i++) {
+                names[i - from] = users.get(i).username();
+            }
+            Set<String> taken = new HashSet<>();
+            try (PreparedStatement ps = conn.prepareStatement("SELECT USERNAME FROM USERS WHERE USERNAME = ANY(?)")) {
+                ps.setObject(1, names);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        taken.add(rs.getString(1));
+                    }
+                }
+            }
+
+            conn.setAutoCommit(false);
+            try (PreparedStatement insUser = conn.prepareStatement(
+                    "INSERT INTO USERS (USERNAME, PASSWORD, EMAIL) VALUES (?, ?, ?)");
+                 PreparedStatement insRole = conn.prepareStatement(
+                    "INSERT INTO ROLES (USERNAME, ROLE, ROLE_BITS) VALUES (?, ?, ?)")) {
+                for (int i = from; i < to; i++) {
+                    NewUser u = users.get(i);
+                    if (taken.contains(u.username())) {
+                        errors[i] = "Username already exists";
+                        continue;
+                    }
+                    insUser.setString(1, u.username());
+                    insUser.setString(2, u.password());
+                    insUser.setString(3, u.email());
+                    insUser.addBatch();
+                    insRole.setString(1, u.username());
+                    insRole.setString(2, u.role());
+                    insRole.setInt(3, Role.maskOf(u.role()));
+                    insRole.addBatch();
+                }
+                insUser.executeBatch();
+                insRole.executeBatch();
+            }
+            saveChanges(conn);
+        } catch (SQLException e) {
+            // the chunk was rolled back, e.g. a name was taken in the meantime,
+            // so add the rest one by one to find the row that failed
+            for (int i = from; i < to; i++) {
+                if (errors[i] == null) {
+                    errors[i] = registerOne(users.get(i));
+                }
+            }
+        }
+        for (int i = from; i < to; i++) {
+            roleCache.invalidate(users.get(i).username());
+        }
+    }
+
+    private String registerOne(NewUser u) {
+        try (Connection conn = pool.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement insUser = conn.prepareStatement(
+                    "INSERT INTO USERS (USERNAME, PASSWORD, EMAIL) VALUES (?, ?, ?)");
+                 PreparedStatement insRole = conn.prepareStatement(
+                    "INSERT INTO ROLES (USERNAME, ROLE, ROLE_BITS) VALUES (?, ?, ?)")) {
+                insUser.setString(1, u.username());
+                insUser.setString(2, u.password());
+                insUser.setString(3, u.email());
+                insUser.executeUpdate();
+                insRole.setString(1, u.username());
+                insRole.setString(2, u.role());
+                insRole.setInt(3, Role.maskOf(u.role()));
+                insRole.executeUpdate();
+            }
+            saveChanges(conn);
+            return null;
+        } catch (SQLException e) {
+            // 23505 is the standard sqlstate for a unique constraint violation
+            return "23505".equals(e.getSQLState()) ? "Username already exists" : e.getMessage();
+        }
+    }
+
     // check login
     public boolean login(String username, String password) {
-        try (PreparedStatement ps = conn.prepareStatement(
+        long start = DatabaseMetrics.start();
+        try (Connection conn = pool.getConnection();
+             PreparedStatement ps = conn.prepareStatement(
                 "SELECT 1 FROM USERS WHERE USERNAME = ? AND PASSWORD = ?")) {
             ps.setString(1, username);
             ps.setString(2, password);
             ResultSet rs = ps.executeQuery();
             boolean ok = rs.next();
             rs.close();
+            metrics.success("login", start, ok ? 1 : 0);
             return ok;
         } catch (SQLException e) {
+            metrics.failure("login", start, e);
             return false;
         }
     }
 
-    // give a user a role
-    public void addRole(String username, String role) {
-        try (PreparedStatement ps = conn.prepareStatement(
-                "INSERT INTO ROLES (USERNAME, ROLE) VALUES (?, ?)")) {
+    // give a user a role, true if it was saved.
+    // ROLES references USERS since schema migration 2, so a user that does not exist gets false
+    public boolean addRole(String username, String role) {
+        long start = DatabaseMetrics.start();
+        try (Connection conn = pool.getConnection();
+             PreparedStatement ps = conn.prepareStatement(
+                "INSERT INTO ROLES (USERNAME, ROLE, ROLE_BITS) VALUES (?, ?, ?)")) {
             ps.setString(1, username);
             ps.setString(2, role);
+            ps.setInt(3, Role.maskOf(role));
             ps.executeUpdate();
-            saveChanges();
+            saveChanges(conn);
+            metrics.success("addRole", start, 1);
+            return true;
+        } catch (SQLIntegrityConstraintViolationException e) {
+            metrics.failure("addRole", start, e);
+            System.err.println("Could not add role " + role + ": no user " + username);
+            return false;
         } catch (SQLException e) {
+            metrics.failure("addRole", start, e);
             e.printStackTrace();
+            return false;
+        } finally {
+            roleCache.invalidate(username);
         }
     }
 
-    // get roles for a user
-    public List<String> getUserRoles(String username) {
-        List<String> roles = new ArrayList<>();
-        try (PreparedStatement ps = conn.prepareStatement(
-                "SELECT ROLE FROM ROLES WHERE USERNAME = ?")) {
+    // take one role away from a user, true if they had it
+    public boolean removeRole(String username, String role) {
+        long start = DatabaseMetrics.start();
+        try (Connection conn = pool.getConnection();
+             PreparedStatement ps = conn.prepareStatement(
+                "DELETE FROM ROLES WHERE USERNAME = ? AND ROLE = ?")) {
             ps.setString(1, username);
-            ResultSet rs = ps.executeQuery();
-            while (rs.next()) {
-                roles.add(rs.getString("ROLE"));
-            }
-            rs.close();
+            ps.setString(2, role);
+            boolean removed = ps.executeUpdate() > 0;
+            saveChanges(conn);
+            metrics.success("removeRole", start, removed ? 1 : 0);
+            return removed;
         } catch (SQLException e) {
+            metrics.failure("removeRole", start, e);
             e.printStackTrace();
+            return false;
+        } finally {
+            roleCache.invalidate(username);
         }
-        return roles;
     }
 
+    // get roles for a user, served from the role cache after the first lookup
+    // the list is read-only, a failed lookup gives an empty list and is not cached
+    public List<String> getUserRoles(String username) {
+        return userRoles("getUserRoles", username).names();
+    }
+
+    // the ROLE_BITS of all of a user's rows or'ed together, from the same cache entry.
+    // permission checks test this against Role bits instead of matching the strings again
+    public int getRoleMask(String username) {
+        return userRoles("getRoleMask", username).mask();
+    }
+
+    private UserRoles userRoles(String operation, String username) {
+        long start = DatabaseMetrics.start();
+        try {
+            UserRoles roles = roleCache.get(username, this::loadUserRoles);
+            metrics.success(operation, start, roles.names().size());
+            return roles;
+        } catch (SQLException e) {
+            metrics.failure(operation, start, e);
+            e.printStackTrace();
+            return UserRoles.NONE;
+        }
+    }
+
+    private UserRoles loadUserRoles(String username) throws SQLException {
+        List<String> names = new ArrayList<>();
+        int mask = 0;
+        try (Connection conn = pool.getConnection();
+             PreparedStatement ps = conn.prepareStatement(
+                "SELECT ROLE, ROLE_BITS FROM ROLES WHERE USERNAME = ?")) {
+            ps.setString(1, username);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    names.add(rs.getString("ROLE"));
+                    mask |= rs.getInt("ROLE_BITS");
+                }
+            }
+        }
+        return new UserRoles(List.copyOf(names), mask);
+    }
+
+    public long getRoleCacheHits() { return roleCache.getHits(); }
+
+    public long getRoleCacheMisses() { return roleCache.getMisses(); }
+
     // remove a user and their roles
     public void deleteUser(String username) {
-        try {
+        long start = DatabaseMetrics.start();
+        try (Connection conn = pool.getConnection()) {
+            // both deletes go through as one transaction
+            conn.setAutoCommit(false);
             try (PreparedStatement ps1 = conn.prepareStatement("DELETE FROM ROLES WHERE USERNAME = ?")) {
                 ps1.setString(1, username);
                 ps1.executeUpdate();
             }
+            int deleted;
             try (PreparedStatement ps2 = conn.prepareStatement("DELETE FROM USERS WHERE USERNAME = ?")) {
                 ps2.setString(1, username);
-                ps2.executeUpdate();
+                deleted = ps2.executeUpdate();
             }
-            saveChanges();
+            saveChanges(conn);
+            metrics.success("deleteUser", start, deleted);
         } catch (SQLException e) {
+            metrics.failure("deleteUser", start, e);
             e.printStackTrace();
+        } finally {
+            roleCache.invalidate(username);
         }
     }
 
-    // safer version of getAllUsers
-    public List<String[]> getAllUsers() {
-        List<String[]> users = new ArrayList<>();
-        try {
-            PreparedStatement psUsers = conn.prepareStatement("SELECT USERNAME, EMAIL FROM USERS");
-            ResultSet rsUsers = psUsers.executeQuery();
+    // columns the admin user table can be sorted by
+    public enum UserSort {
+        USERNAME("U.USERNAME"),
+        EMAIL("U.EMAIL");
 
-            while (rsUsers.next()) {
-                String uname = rsUsers.getString("USERNAME");
-                String email = rsUsers.getString("EMAIL");
+        private final String column;
 
-                PreparedStatement psRoles = conn.prepareStatement("SELECT ROLE FROM ROLES WHERE USERNAME = ?");
-                psRoles.setString(1, uname);
-                ResultSet rsRoles = psRoles.executeQuery();
+        UserSort(String column) {
+            this.column = column;
+        }
+    }
 
-                List<String> roleList = new ArrayList<>();
-                while (rsRoles.next()) {
-                    roleList.add(rsRoles.getString("ROLE"));
-                }
-                rsRoles.close();
-                psRoles.close();
+    // users joined with their roles in one grouped query, no per-user role lookups
+    private static final String USER_DIRECTORY_SQL =
+            "SELECT U.USERNAME, U.EMAIL, LISTAGG(R.ROLE, ',') WITHIN GROUP (ORDER BY R.ROLE) AS ROLES " +
+            "FROM USERS U LEFT JOIN ROLES R ON R.USERNAME = U.USERNAME ";
 
-                String roles = roleList.isEmpty() ? "(none)" : String.join(",", roleList);
+    // the patterns come from toFilterPattern, which escapes the wildcards with LIKE_ESCAPE
+    private static final String USER_FILTER_SQL =
+            "WHERE LOWER(U.USERNAME) LIKE ? ESCAPE '\\' OR LOWER(U.EMAIL) LIKE ? ESCAPE '\\' ";
+    private static final char LIKE_ESCAPE = '\\';
 
-                String name;
-                if (email != null && email.contains("@")) {
-                    name = email.substring(0, email.indexOf("@"));
-                } else {
-                    name = "(not set)";
-                }
+    // safer version of getAllUsers
+    public List<UserRow> getAllUsers() {
+        return queryList("getAllUsers", USER_DIRECTORY_SQL + "GROUP BY U.USERNAME, U.EMAIL ORDER BY U.USERNAME",
+                ps -> { }, UserRow::map);
+    }
 
-                users.add(new String[]{uname, name, email == null ? "" : email, roles});
-            }
+    // one page of the user directory, filter matches username or email (null/empty means everyone)
+    public List<UserRow> getUserPage(String filter, UserSort sort, boolean ascending, int offset, int limit) {
+        String sql = USER_DIRECTORY_SQL + USER_FILTER_SQL +
+                "GROUP BY U.USERNAME, U.EMAIL " +
+                "ORDER BY " + sort.column + (ascending ? " ASC" : " DESC") + ", U.USERNAME " +
+                "LIMIT ? OFFSET ?";
+        String like = toFilterPattern(filter);
+        return queryList("getUserPage", sql, ps -> {
+            ps.setString(1, like);
+            ps.setString(2, like);
+            ps.setInt(3, limit);
+            ps.setInt(4, offset);
+        }, UserRow::map);
+    }
 
-            rsUsers.close();
-            psUsers.close();
+    // how many users match the filter, used to size the admin table pager
+    public int countUsers(String filter) {
+        long start = DatabaseMetrics.start();
+        try (Connection conn = pool.getConnection();
+             PreparedStatement ps = conn.prepareStatement(
+                "SELECT COUNT(*) AS CNT FROM USERS U " + USER_FILTER_SQL)) {
+            String like = toFilterPattern(filter);
+            ps.setString(1, like);
+            ps.setString(2, like);
+            ResultSet rs = ps.executeQuery();
+            int count = rs.next() ? rs.getInt("CNT") : 0;
+            rs.close();
+            metrics.success("countUsers", start, 1);
+            return count;
         } catch (SQLException e) {
+            metrics.failure("countUsers", start, e);
             e.printStackTrace();
+            return 0;
         }
-        return users;
     }
 
-    // make a random invite code
-    public String generateInvitationCode() {
-        String code = UUID.randomUUID().toString().substring(0, 8);
-        try (PreparedStatement ps = conn.prepareStatement(
-                "INSERT INTO INVITATIONS (CODE, USED) VALUES (?, FALSE)")) {
-            ps.setString(1, code);
-            ps.executeUpdate();
-            saveChanges();
+    // how many distinct users hold a role, so callers dont have to load every user to count admins
+    // known roles are matched on ROLE_BITS, anything else by name. a row may carry more than one
+    // bit, so the query lists every stored value that includes the role's bit; an IN list is
+    // what lets the (ROLE_BITS, USERNAME) index answer it, a BITAND test would scan every row
+    public int countUsersWithRole(String role) {
+        long start = DatabaseMetrics.start();
+        int bits = Role.maskOf(role);
+        String sql = bits != 0
+                ? "SELECT COUNT(DISTINCT USERNAME) AS CNT FROM ROLES WHERE ROLE_BITS = ANY(?)"
+                : "SELECT COUNT(DISTINCT USERNAME) AS CNT FROM ROLES WHERE LOWER(ROLE) = ?";
+        try (Connection conn = pool.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            if (bits != 0) ps.setObject(1, Role.masksWith(bits));
+            else ps.setString(1, role.toLowerCase());
+            ResultSet rs = ps.executeQuery();
+            int count = rs.next() ? rs.getInt("CNT") : 0;
+            rs.close();
+            metrics.success("countUsersWithRole", start, 1);
+            return count;
         } catch (SQLException e) {
+            metrics.failure("countUsersWithRole", start, e);
             e.printStackTrace();
+            return 0;
         }
-        return code;
     }
 
-    // check if an invite code is valid
-    public boolean validateInvitationCode(String code) {
-        try (PreparedStatement ps = conn.prepareStatement(
-                "SELECT 1 FROM INVITATIONS WHERE CODE = ? AND USED = FALSE")) {
-            ps.setString(1, code);
-            ResultSet rs = ps.executeQuery();
-            boolean valid = rs.next();
-            rs.close();
-            if (valid) {
-                try (PreparedStatement upd = conn.prepareStatement(
-                        "UPDATE INVITATIONS SET USED = TRUE WHERE CODE = ?")) {
-                    upd.setString(1, code);
-                    upd.executeUpdate();
-                    saveChanges();
+    // a contains-match for the filter text. % and _ typed by the admin match themselves,
+    // e.g. "a_b" must not also find "axb"
+    private static String toFilterPattern(String filter) {
+        if (filter == null || filter.isBlank()) return "%";
+        String text = filter.trim().toLowerCase();
+        StringBuilder like = new StringBuilder(text.length() + 2).append('%');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '%' || c == '_' || c == LIKE_ESCAPE) like.append(LIKE_ESCAPE);
+            like.append(c);
+        }
+        return like.append('%').toString();
+    }
+
+    // make a random invite code, null if it could not be saved
+    public String generateInvitationCode() {
+        List<String> codes = generateInvitationCodes(1);
+        return codes.isEmpty() ? null : codes.get(0);
+    }
+
+    // make count new invite codes in one batched insert, empty if they could not be saved
+    public List<String> generateInvitationCodes(int count) {
+        long start = DatabaseMetrics.start();
+        for (int attempt = 0; attempt < 3; attempt++) {
+            try (Connection conn = pool.getConnection()) {
+                // unique within the batch first, then drop any that are already in the table
+                Set<String> codes = new HashSet<>();
+                while (codes.size() < count) {
+                    codes.add(InvitationCodes.next());
+                }
+                try (PreparedStatement ps = conn.prepareStatement(
+                        "SELECT CODE FROM INVITATIONS WHERE CODE = ANY(?)")) {
+                    ps.setObject(1, codes.toArray(new String[0]));
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            codes.remove(rs.getString(1));
+                        }
+                    }
+                }
+                // with 50 random bits per code this practically never runs
+                while (codes.size() < count) {
+                    codes.add(InvitationCodes.next());
+                }
+
+                conn.setAutoCommit(false);
+                try (PreparedStatement ps = conn.prepareStatement(
+                        "INSERT INTO INVITATIONS (CODE, USED) VALUES (?, FALSE)")) {
+                    for (String code : codes) {
+                        ps.setString(1, code);
+                        ps.addBatch();
+                    }
+                    ps.executeBatch();
+                }
+                saveChanges(conn);
+                metrics.success("generateInvitationCodes", start, codes.size());
+                return new ArrayList<>(codes);
+            } catch (SQLException e) {
+                // a code collided with one inserted at the same moment, try again with new codes
+                boolean collision = "23505".equals(e.getSQLState());
+                if (!collision || attempt == 2) {
+                    metrics.failure("generateInvitationCodes", start, e);
+                }
+                if (!collision) {
+                    e.printStackTrace();
+                    break;
                 }
             }
-            return valid;
+        }
+        return new ArrayList<>();
+    }
+
+    // use up an invite code, true if it existed and had not been used yet. case does not matter.
+    // one conditional update, so when two sign-ups race for the same code only one of them gets it
+    public boolean validateInvitationCode(String code) {
+        long start = DatabaseMetrics.start();
+        try (Connection conn = pool.getConnection();
+             PreparedStatement ps = conn.prepareStatement(
+                "UPDATE INVITATIONS SET USED = TRUE WHERE CODE = ? AND USED = FALSE")) {
+            ps.setString(1, InvitationCodes.normalize(code));
+            boolean redeemed = ps.executeUpdate() == 1;
+            saveChanges(conn);
+            metrics.success("validateInvitationCode", start, redeemed ? 1 : 0);
+            return redeemed;
         } catch (SQLException e) {
+            metrics.failure("validateInvitationCode", start, e);
             return false;
         }
     }
 
     // reset password
     public boolean resetPassword(String username, String newPass) {
-        try (PreparedStatement ps = conn.prepareStatement(
+        long start = DatabaseMetrics.start();
+        try (Connection conn = pool.getConnection();
+             PreparedStatement ps = conn.prepareStatement(
                 "UPDATE USERS SET PASSWORD = ? WHERE USERNAME = ?")) {
             ps.setString(1, newPass);
             ps.setString(2, username);
             boolean ok = ps.executeUpdate() > 0;
-            saveChanges();
+            saveChanges(conn);
+            metrics.success("resetPassword", start, ok ? 1 : 0);
             return ok;
         } catch (SQLException e) {
+            metrics.failure("resetPassword", start, e);
             return false;
         }
     }
 
     // get user email
     public String getUserEmail(String username) {
-        try (PreparedStatement ps = conn.prepareStatement(
+        long start = DatabaseMetrics.start();
+        try (Connection conn = pool.getConnection();
+             PreparedStatement ps = conn.prepareStatement(
                 "SELECT EMAIL FROM USERS WHERE USERNAME = ?")) {
             ps.setString(1, username);
             ResultSet rs = ps.executeQuery();
@@ -267,237 +720,542 @@ public class DatabaseHelper {
                 email = rs.getString("EMAIL");
             }
             rs.close();
+            metrics.success("getUserEmail", start, email != null ? 1 : 0);
             return email;
         } catch (SQLException e) {
+            metrics.failure("getUserEmail", start, e);
             return null;
         }
     }
 
     // update user email
     public boolean updateUserEmail(String username, String newEmail) {
-        try (PreparedStatement ps = conn.prepareStatement(
+        long start = DatabaseMetrics.start();
+        try (Connection conn = pool.getConnection();
+             PreparedStatement ps = conn.prepareStatement(
                 "UPDATE USERS SET EMAIL = ? WHERE USERNAME = ?")) {
             ps.setString(1, newEmail);
             ps.setString(2, username);
             boolean ok = ps.executeUpdate() > 0;
-            saveChanges();
+            saveChanges(conn);
+            metrics.success("updateUserEmail", start, ok ? 1 : 0);
             return ok;
         } catch (SQLException e) {
+            metrics.failure("updateUserEmail", start, e);
             return false;
         }
     }
 
     // check if db empty
     public boolean isDatabaseEmpty() {
-        try (Statement stmt = conn.createStatement();
+        long start = DatabaseMetrics.start();
+        try (Connection conn = pool.getConnection();
+             Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery("SELECT COUNT(*) AS CNT FROM USERS")) {
-            return rs.next() && rs.getInt("CNT") == 0;
+            boolean empty = rs.next() && rs.getInt("CNT") == 0;
+            metrics.success("isDatabaseEmpty", start, 1);
+            return empty;
         } catch (SQLException e) {
+            metrics.failure("isDatabaseEmpty", start, e);
             return true;
         }
     }
 
     // update user role
     public boolean updateUserRole(String username, String role) {
-        try {
-            PreparedStatement del = conn.prepareStatement("DELETE FROM ROLES WHERE USERNAME = ?");
-            del.setString(1, username);
-            del.executeUpdate();
-            del.close();
-
-            PreparedStatement ps = conn.prepareStatement("INSERT INTO ROLES (USERNAME, ROLE) VALUES (?, ?)");
-            ps.setString(1, username);
-            ps.setString(2, role);
-            ps.executeUpdate();
-            ps.close();
+        long start = DatabaseMetrics.start();
+        try (Connection conn = pool.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement del = conn.prepareStatement("DELETE FROM ROLES WHERE USERNAME = ?")) {
+                del.setString(1, username);
+                del.executeUpdate();
+            }
+            try (PreparedStatement ps = conn.prepareStatement("INSERT INTO ROLES (USERNAME, ROLE, ROLE_BITS) VALUES (?, ?, ?)")) {
+                ps.setString(1, username);
+                ps.setString(2, role);
+                ps.setInt(3, Role.maskOf(role));
+                ps.executeUpdate();
+            }
 
-            saveChanges();
+            saveChanges(conn);
+            metrics.success("updateUserRole", start, 1);
             return true;
         } catch (SQLException e) {
+            metrics.failure("updateUserRole", start, e);
             e.printStackTrace();
             return false;
+        } finally {
+            roleCache.invalidate(username);
         }
     }
 
     // Q&A section methods
     public boolean addQuestion(String username, String title, String body) {
-        try (PreparedStatement ps = conn.prepareStatement(
-                "INSERT INTO QUESTIONS (USERNAME, TITLE, BODY) VALUES (?, ?, ?)")) {
-            ps.setString(1, username);
-            ps.setString(2, title);
-            ps.setString(3, body);
-            ps.executeUpdate();
-            saveChanges();
-            return true;
-        } catch (SQLException e) {
-            e.printStackTrace();
-            return false;
-        }
+        return createQuestion(username, title, body) > 0;
     }
 
-    public List<String[]> getAllQuestions() {
-        List<String[]> list = new ArrayList<>();
-        try (PreparedStatement ps = conn.prepareStatement(
-                "SELECT QID, USERNAME, TITLE, BODY, CREATED_AT FROM QUESTIONS ORDER BY QID DESC")) {
+    // the new QID, -1 if the question could not be saved
+    public int createQuestion(String username, String title, String body) {
+        return waitForId(submitQuestion(username, title, body));
+    }
+
+    // queues the insert for the next group commit, the future gets the new QID
+    public CompletableFuture<Integer> submitQuestion(String username, String title, String body) {
+        return timed("submitQuestion", writeBatcher.submitQuestion(username, title, body));
+    }
+
+    public List<QuestionRow> getAllQuestions() {
+        return queryList("getAllQuestions", "SELECT " + QuestionRow.COLUMNS + " FROM QUESTIONS ORDER BY QID DESC",
+                ps -> { }, QuestionRow::map);
+    }
+
+    public int countQuestions() {
+        long start = DatabaseMetrics.start();
+        try (Connection conn = pool.getConnection();
+             PreparedStatement ps = conn.prepareStatement("SELECT COUNT(*) AS CNT FROM QUESTIONS")) {
             ResultSet rs = ps.executeQuery();
-            while (rs.next()) {
-                list.add(new String[]{
-                        rs.getString("QID"),
-                        rs.getString("USERNAME"),
-                        rs.getString("TITLE"),
-                        rs.getString("BODY"),
-                        rs.getString("CREATED_AT")
-                });
-            }
+            int count = rs.next() ? rs.getInt("CNT") : 0;
             rs.close();
+            metrics.success("countQuestions", start, 1);
+            return count;
         } catch (SQLException e) {
+            metrics.failure("countQuestions", start, e);
             e.printStackTrace();
+            return 0;
         }
-        return list;
     }
 
-    public List<String[]> getQuestionsByUser(String username) {
-        List<String[]> list = new ArrayList<>();
-        try (PreparedStatement ps = conn.prepareStatement(
-                "SELECT QID, USERNAME, TITLE, BODY, CREATED_AT FROM QUESTIONS WHERE USERNAME = ? ORDER BY QID DESC")) {
-            ps.setString(1, username);
-            ResultSet rs = ps.executeQuery();
-            while (rs.next()) {
-                list.add(new String[]{
-                        rs.getString("QID"),
-                        rs.getString("USERNAME"),
-                        rs.getString("TITLE"),
-                        rs.getString("BODY"),
-                        rs.getString("CREATED_AT")
-                });
+    // list screens, newest first without the bodies. keyset paged on QID so deep pages cost the same
+    // as the first: pass Integer.MAX_VALUE for the first page, then the smallest QID of the previous one
+    public List<QuestionSummary> getQuestionSummariesPage(int beforeQid, int pageSize) {
+        return queryList("getQuestionSummariesPage",
+                "SELECT " + QuestionSummary.COLUMNS + " FROM QUESTIONS Q WHERE Q.QID < ? ORDER BY Q.QID DESC LIMIT ?",
+                ps -> {
+                    ps.setInt(1, beforeQid);
+                    ps.setInt(2, pageSize);
+                }, QuestionSummary::map);
+    }
+
+    // the pageSize questions just newer than afterQid, still newest first. the same keyset seek as
+    // getQuestionSummariesPage but upwards, for scrolling back up past an evicted page
+    public List<QuestionSummary> getQuestionSummariesAfter(int afterQid, int pageSize) {
+        List<QuestionSummary> rows = queryList("getQuestionSummariesAfter",
+                "SELECT " + QuestionSummary.COLUMNS + " FROM QUESTIONS Q WHERE Q.QID > ? ORDER BY Q.QID ASC LIMIT ?",
+                ps -> {
+                    ps.setInt(1, afterQid);
+                    ps.setInt(2, pageSize);
+                }, QuestionSummary::map);
+        Collections.reverse(rows);
+        return rows;
+    }
+
+    // the rows at one position of the newest-first list, for jumping into the middle of it.
+    // OFFSET still walks the skipped rows, so prefer the keyset methods when a neighbouring QID is known
+    public List<QuestionSummary> getQuestionSummariesAt(int offset, int limit) {
+        return queryList("getQuestionSummariesAt",
+                "SELECT " + QuestionSummary.COLUMNS + " FROM QUESTIONS Q ORDER BY Q.QID DESC LIMIT ? OFFSET ?",
+                ps -> {
+                    ps.setInt(1, limit);
+                    ps.setInt(2, offset);
+                }, QuestionSummary::map);
+    }
+
+    // the current summaries of some questions, in no particular order. deleted ones are missing
+    public List<QuestionSummary> getQuestionSummaries(Collection<Integer> qids) {
+        if (qids.isEmpty()) return new ArrayList<>();
+        Integer[] ids = qids.toArray(new Integer[0]);
+        return queryList("getQuestionSummaries",
+                "SELECT " + QuestionSummary.COLUMNS + " FROM QUESTIONS Q WHERE Q.QID = ANY(?)",
+                ps -> ps.setObject(1, ids), QuestionSummary::map);
+    }
+
+    // one page of the staff triage queue. after is the last row of the previous page, null for the first.
+    // every page is one or two ranges of a triage index, so it never counts or sorts the whole queue
+    public List<QuestionSummary> getTriageQueue(TriageOrder order, QuestionSummary after, int limit) {
+        long start = DatabaseMetrics.start();
+        String select = "SELECT " + QuestionSummary.COLUMNS + " FROM QUESTIONS Q WHERE " + order.where;
+        String orderBy = " ORDER BY " + order.orderBy + " LIMIT ?";
+        List<QuestionSummary> page;
+        if (after == null) {
+            page = queryList("getTriageQueue.range", select + orderBy, ps -> ps.setInt(1, limit), QuestionSummary::map);
+        } else if (order != TriageOrder.PRIORITY) {
+            page = queryList("getTriageQueue.range", select + " AND Q.QID > ?" + orderBy, ps -> {
+                ps.setInt(1, after.qid());
+                ps.setInt(2, limit);
+            }, QuestionSummary::map);
+        } else {
+            // the rest of after's reply count, then the higher counts. as one (count, qid) > (?, ?)
+            // condition h2 would walk every row of the count from the start, and it starts a
+            // COUNT > ? range at COUNT = ? too, hence the >= count + 1
+            page = queryList("getTriageQueue.range", select + " AND Q.ANSWER_COUNT = ? AND Q.QID > ?" + orderBy, ps -> {
+                ps.setInt(1, after.answerCount());
+                ps.setInt(2, after.qid());
+                ps.setInt(3, limit);
+            }, QuestionSummary::map);
+            if (page.size() < limit) {
+                int rest = limit - page.size();
+                page.addAll(queryList("getTriageQueue.range", select + " AND Q.ANSWER_COUNT >= ?" + orderBy, ps -> {
+                    ps.setInt(1, after.answerCount() + 1);
+                    ps.setInt(2, rest);
+                }, QuestionSummary::map));
             }
-            rs.close();
-        } catch (SQLException e) {
-            e.printStackTrace();
         }
-        return list;
+        metrics.success("getTriageQueue", start, page.size());
+        return page;
     }
 
-    public boolean addAnswer(int qid, String username, String body) {
-        try (PreparedStatement ps = conn.prepareStatement(
-                "INSERT INTO ANSWERS (QID, USERNAME, BODY) VALUES (?, ?, ?)")) {
-            ps.setInt(1, qid);
-            ps.setString(2, username);
-            ps.setString(3, body);
-            ps.executeUpdate();
-            saveChanges();
-            return true;
-        } catch (SQLException e) {
-            e.printStackTrace();
-            return false;
+    // the body of one question, from the cache when it was opened recently. null if there is no such question
+    public String getQuestionBody(int qid) {
+        long start = DatabaseMetrics.start();
+        String body = bodyCache.get(qid);
+        if (body == null) {
+            // cache misses show up as getQuestionBody.load
+            List<String> rows = queryList("getQuestionBody.load", "SELECT BODY FROM QUESTIONS WHERE QID = ?",
+                    ps -> ps.setInt(1, qid), rs -> rs.getString(1));
+            if (!rows.isEmpty()) {
+                body = rows.get(0) == null ? "" : rows.get(0);
+                bodyCache.putIfAbsent(qid, body);
+            }
         }
+        metrics.success("getQuestionBody", start, body == null ? 0 : 1);
+        return body;
     }
 
-    public List<String[]> getAnswers(int qid) {
-        List<String[]> list = new ArrayList<>();
-        try (PreparedStatement ps = conn.prepareStatement(
-                "SELECT AID, USERNAME, BODY, IS_ACCEPTED, CREATED_AT FROM ANSWERS WHERE QID = ? ORDER BY AID ASC")) {
-            ps.setInt(1, qid);
-            ResultSet rs = ps.executeQuery();
-            while (rs.next()) {
-                list.add(new String[]{
-                        rs.getString("AID"),
-                        rs.getString("USERNAME"),
-                        rs.getString("BODY"),
-                        rs.getString("IS_ACCEPTED"),
-                        rs.getString("CREATED_AT")
-                });
-            }
-            rs.close();
-        } catch (SQLException e) {
-            e.printStackTrace();
+    public List<QuestionRow> getQuestionsByUser(String username) {
+        return queryList("getQuestionsByUser", "SELECT " + QuestionRow.COLUMNS + " FROM QUESTIONS WHERE USERNAME = ? ORDER BY QID DESC",
+                ps -> ps.setString(1, username), QuestionRow::map);
+    }
+
+    public boolean addAnswer(int qid, String username, String body) {
+        return waitForId(submitAnswer(qid, username, body)) > 0;
+    }
+
+    // queues the insert for the next group commit, the future gets the new AID
+    public CompletableFuture<Integer> submitAnswer(int qid, String username, String body) {
+        return timed("submitAnswer", writeBatcher.submitAnswer(qid, username, body));
+    }
+
+    // queued writes are timed from submit until their group commit lands
+    private CompletableFuture<Integer> timed(String operation, CompletableFuture<Integer> pending) {
+        long start = DatabaseMetrics.start();
+        return pending.whenComplete((id, error) -> {
+            if (error != null) metrics.failure(operation, start, error);
+            else metrics.success(operation, start, 1);
+        });
+    }
+
+    // blocking callers still share a commit with everyone else posting at the same moment.
+    // the wait is bounded, a write still queued after that may land later but the caller gets -1
+    private static int waitForId(CompletableFuture<Integer> pending) {
+        try {
+            return pending.get(WRITE_WAIT_MS, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            e.getCause().printStackTrace();
+            return -1;
+        } catch (TimeoutException e) {
+            System.err.println("Gave up waiting " + WRITE_WAIT_MS + " ms for a queued write");
+            return -1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return -1;
         }
-        return list;
+    }
+
+    public List<AnswerRow> getAnswers(int qid) {
+        return queryList("getAnswers", "SELECT " + AnswerRow.COLUMNS + " FROM ANSWERS WHERE QID = ? ORDER BY AID ASC",
+                ps -> ps.setInt(1, qid), AnswerRow::map);
     }
 
     public boolean updateQuestion(int qid, String newTitle, String newBody) {
-        try (PreparedStatement ps = conn.prepareStatement(
+        long start = DatabaseMetrics.start();
+        try (Connection conn = pool.getConnection();
+             PreparedStatement ps = conn.prepareStatement(
                 "UPDATE QUESTIONS SET TITLE = ?, BODY = ? WHERE QID = ?")) {
             ps.setString(1, newTitle);
             ps.setString(2, newBody);
             ps.setInt(3, qid);
             boolean ok = ps.executeUpdate() > 0;
-            saveChanges();
+            saveChanges(conn);
+            if (ok) {
+                indexQuestion(qid, newTitle, newBody);
+                bodyCache.put(qid, newBody == null ? "" : newBody);
+                fireQuestionsChanged(Set.of(qid));
+            }
+            metrics.success("updateQuestion", start, ok ? 1 : 0);
             return ok;
         } catch (SQLException e) {
+            metrics.failure("updateQuestion", start, e);
             e.printStackTrace();
             return false;
         }
     }
 
     public boolean deleteQuestion(int qid) {
-        try {
-            PreparedStatement ps1 = conn.prepareStatement("DELETE FROM ANSWERS WHERE QID = ?");
-            ps1.setInt(1, qid);
-            ps1.executeUpdate();
-            ps1.close();
-
-            PreparedStatement ps2 = conn.prepareStatement("DELETE FROM QUESTIONS WHERE QID = ?");
-            ps2.setInt(1, qid);
-            ps2.executeUpdate();
-            ps2.close();
+        long start = DatabaseMetrics.start();
+        try (Connection conn = pool.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement ps = conn.prepareStatement("DELETE FROM ANSWERS WHERE QID = ?")) {
+                ps.setInt(1, qid);
+                ps.executeUpdate();
+            }
+            int deleted;
+            try (PreparedStatement ps = conn.prepareStatement("DELETE FROM QUESTIONS WHERE QID = ?")) {
+                ps.setInt(1, qid);
+                deleted = ps.executeUpdate();
+            }
 
-            saveChanges();
+            saveChanges(conn);
+            unindexQuestion(qid);
+            bodyCache.remove(qid);
+            if (deleted > 0) fireQuestionsChanged(Set.of(qid));
+            metrics.success("deleteQuestion", start, deleted);
             return true;
         } catch (SQLException e) {
+            metrics.failure("deleteQuestion", start, e);
             e.printStackTrace();
             return false;
         }
     }
 
-    // Delete an answer by AID
+    // Delete an answer by AID, the question's counter and solved flag change in the same transaction
     public boolean deleteAnswer(int aid) {
-        try (PreparedStatement ps = conn.prepareStatement("DELETE FROM ANSWERS WHERE AID = ?")) {
-            ps.setInt(1, aid);
-            ps.executeUpdate();
-            saveChanges();
+        long start = DatabaseMetrics.start();
+        try (Connection conn = pool.getConnection()) {
+            conn.setAutoCommit(false);
+            int qid = questionOfAnswer(conn, aid);
+            int deleted = 0;
+            if (qid > 0) {
+                try (PreparedStatement ps = conn.prepareStatement("DELETE FROM ANSWERS WHERE AID = ?")) {
+                    ps.setInt(1, aid);
+                    deleted = ps.executeUpdate();
+                }
+            }
+            if (deleted > 0) {
+                // losing the accepted answer makes the question unsolved again
+                try (PreparedStatement ps = conn.prepareStatement(
+                        "UPDATE QUESTIONS SET ANSWER_COUNT = ANSWER_COUNT - 1, " +
+                        "SOLVED = SOLVED AND ACCEPTED_AID IS DISTINCT FROM ?, ACCEPTED_AID = NULLIF(ACCEPTED_AID, ?) " +
+                        "WHERE QID = ?")) {
+                    ps.setInt(1, aid);
+                    ps.setInt(2, aid);
+                    ps.setInt(3, qid);
+                    ps.executeUpdate();
+                }
+            }
+            saveChanges(conn);
+            if (deleted > 0) fireQuestionsChanged(Set.of(qid));
+            metrics.success("deleteAnswer", start, deleted);
             return true;
         } catch (SQLException e) {
+            metrics.failure("deleteAnswer", start, e);
             e.printStackTrace();
             return false;
         }
     }
 
+    // a question has at most one accepted answer, accepting another one replaces it
     public boolean markAnswerAccepted(int aid) {
-        try (PreparedStatement ps = conn.prepareStatement(
-                "UPDATE ANSWERS SET IS_ACCEPTED = TRUE WHERE AID = ?")) {
-            ps.setInt(1, aid);
-            boolean ok = ps.executeUpdate() > 0;
-            saveChanges();
-            return ok;
+        long start = DatabaseMetrics.start();
+        try (Connection conn = pool.getConnection()) {
+            conn.setAutoCommit(false);
+            int qid = questionOfAnswer(conn, aid);
+            if (qid <= 0) {
+                metrics.success("markAnswerAccepted", start, 0);
+                return false;
+            }
+            // only the old and the new accepted answer are touched
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "UPDATE ANSWERS SET IS_ACCEPTED = (AID = ?) WHERE QID = ? AND (IS_ACCEPTED OR AID = ?)")) {
+                ps.setInt(1, aid);
+                ps.setInt(2, qid);
+                ps.setInt(3, aid);
+                ps.executeUpdate();
+            }
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "UPDATE QUESTIONS SET ACCEPTED_AID = ?, SOLVED = TRUE WHERE QID = ?")) {
+                ps.setInt(1, aid);
+                ps.setInt(2, qid);
+                ps.executeUpdate();
+            }
+            saveChanges(conn);
+            fireQuestionsChanged(Set.of(qid));
+            metrics.success("markAnswerAccepted", start, 1);
+            return true;
         } catch (SQLException e) {
+            metrics.failure("markAnswerAccepted", start, e);
             e.printStackTrace();
             return false;
         }
     }
 
-    public List<String[]> searchQuestions(String keyword) {
-        List<String[]> list = new ArrayList<>();
-        try (PreparedStatement ps = conn.prepareStatement(
-                "SELECT QID, USERNAME, TITLE, BODY, CREATED_AT FROM QUESTIONS " +
-                        "WHERE LOWER(TITLE) LIKE ? OR LOWER(BODY) LIKE ? ORDER BY QID DESC")) {
-            String like = "%" + keyword.toLowerCase() + "%";
-            ps.setString(1, like);
-            ps.setString(2, like);
-            ResultSet rs = ps.executeQuery();
-            while (rs.next()) {
-                list.add(new String[]{
-                        rs.getString("QID"),
-                        rs.getString("USERNAME"),
-                        rs.getString("TITLE"),
-                        rs.getString("BODY"),
-                        rs.getString("CREATED_AT")
-                });
+    // the question an answer belongs to, 0 if the answer does not exist
+    private static int questionOfAnswer(Connection conn, int aid) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT QID FROM ANSWERS WHERE AID = ?")) {
+            ps.setInt(1, aid);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+    }
+
+    // recomputes ANSWER_COUNT, ACCEPTED_AID and SOLVED from ANSWERS, for data loaded around
+    // addAnswer (bulk inserts, hand edits). returns how many column values were wrong.
+    // only rows that are off are written, every written row also moves in the triage indexes
+    public int rebuildAnswerCounters() {
+        long start = DatabaseMetrics.start();
+        try (Connection conn = pool.getConnection();
+             Statement stmt = conn.createStatement()) {
+            conn.setAutoCommit(false);
+            int updated = stmt.executeUpdate("UPDATE QUESTIONS Q SET " +
+                    "ANSWER_COUNT = (SELECT COUNT(*) FROM ANSWERS A WHERE A.QID = Q.QID) " +
+                    "WHERE ANSWER_COUNT <> (SELECT COUNT(*) FROM ANSWERS A WHERE A.QID = Q.QID)");
+            updated += stmt.executeUpdate("UPDATE QUESTIONS Q SET " +
+                    "ACCEPTED_AID = (SELECT MAX(AID) FROM ANSWERS A WHERE A.QID = Q.QID AND A.IS_ACCEPTED) " +
+                    "WHERE ACCEPTED_AID IS DISTINCT FROM " +
+                    "(SELECT MAX(AID) FROM ANSWERS A WHERE A.QID = Q.QID AND A.IS_ACCEPTED)");
+            updated += stmt.executeUpdate("UPDATE QUESTIONS SET SOLVED = ACCEPTED_AID IS NOT NULL " +
+                    "WHERE SOLVED <> (ACCEPTED_AID IS NOT NULL)");
+            saveChanges(conn);
+            metrics.success("rebuildAnswerCounters", start, updated);
+            return updated;
+        } catch (SQLException e) {
+            metrics.failure("rebuildAnswerCounters", start, e);
+            e.printStackTrace();
+            return 0;
+        }
+    }
+
+    // ranked keyword search, best match first
+    public List<QuestionRow> searchQuestions(String keyword) {
+        return searchQuestions(keyword, SEARCH_LIMIT);
+    }
+
+    public List<QuestionRow> searchQuestions(String keyword, int limit) {
+        return search("searchQuestions", keyword, limit, QuestionRow.COLUMNS + " FROM QUESTIONS WHERE QID",
+                QuestionRow::map, QuestionRow::qid);
+    }
+
+    // the same ranking without the bodies, for the list screens
+    public List<QuestionSummary> searchQuestionSummaries(String keyword) {
+        return search("searchQuestionSummaries", keyword, SEARCH_LIMIT,
+                QuestionSummary.COLUMNS + " FROM QUESTIONS Q WHERE Q.QID", QuestionSummary::map, QuestionSummary::qid);
+    }
+
+    // ranks with the index, then fetches just the hits by primary key and puts them back in rank order.
+    // from ends in the QID column the hits are matched on
+    private <T> List<T> search(String operation, String keyword, int limit, String from,
+                               RowMapper<T> mapper, ToIntFunction<T> qidOf) {
+        long start = DatabaseMetrics.start();
+        try {
+            loadSearchIndex();
+        } catch (SQLException e) {
+            metrics.failure(operation, start, e);
+            e.printStackTrace();
+            return new ArrayList<>();
+        }
+
+        int[] ranked = searchIndex.search(keyword, limit);
+        if (ranked.length == 0) {
+            metrics.success(operation, start, 0);
+            return new ArrayList<>();
+        }
+
+        Integer[] ids = new Integer[ranked.length];
+        for (int i = 0; i < ranked.length; i++) ids[i] = ranked[i];
+        Map<Integer, T> byId = new HashMap<>();
+        // the fetch is timed on its own as well, so index time and row time can be told apart
+        for (T row : queryList(operation + ".fetch", "SELECT " + from + " = ANY(?)",
+                ps -> ps.setObject(1, ids), mapper)) {
+            byId.put(qidOf.applyAsInt(row), row);
+        }
+
+        List<T> list = new ArrayList<>(ranked.length);
+        for (int qid : ranked) {
+            T row = byId.get(qid);
+            if (row != null) list.add(row);
+        }
+        metrics.success(operation, start, list.size());
+        return list;
+    }
+
+    // reads every title and body once, later writes keep the index current.
+    // the build holds no lock a writer needs: writes that land meanwhile are queued and replayed
+    // after it, so one committed before the read is read and one committed after is replayed
+    private void loadSearchIndex() throws SQLException {
+        if (searchIndexLoaded) return;
+        synchronized (searchIndexLoad) {
+            if (searchIndexLoaded) return;
+            synchronized (searchIndex) {
+                searchIndexPending = new ArrayList<>();
+            }
+            try (Connection conn = pool.getConnection();
+                 Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT QID, TITLE, BODY FROM QUESTIONS")) {
+                while (rs.next()) {
+                    searchIndex.put(rs.getInt("QID"), rs.getString("TITLE"), rs.getString("BODY"));
+                }
+            } catch (SQLException e) {
+                synchronized (searchIndex) {
+                    searchIndexPending = null;
+                }
+                searchIndex.clear();
+                throw e;
+            }
+            synchronized (searchIndex) {
+                for (Runnable write : searchIndexPending) write.run();
+                searchIndexPending = null;
+                searchIndexLoaded = true;
+            }
+        }
+    }
+
+    // before the first search there is no index to update, the build reads the table after the commit
+    private void indexQuestion(int qid, String title, String body) {
+        updateSearchIndex(() -> searchIndex.put(qid, title, body));
+    }
+
+    private void unindexQuestion(int qid) {
+        updateSearchIndex(() -> searchIndex.remove(qid));
+    }
+
+    // the write runs under the same monitor as the check, so it cannot land after a replay or
+    // a clear it raced with, and two writes to one question apply in the order they got here.
+    // searches take only the index's read lock, never this monitor
+    private void updateSearchIndex(Runnable write) {
+        synchronized (searchIndex) {
+            if (searchIndexPending != null) {
+                searchIndexPending.add(write);
+                return;
+            }
+            if (searchIndexLoaded) write.run();
+        }
+    }
+
+    // sets the ? parameters of a statement before it runs
+    @FunctionalInterface
+    private interface Binder {
+        void bind(PreparedStatement ps) throws SQLException;
+    }
+
+    // runs a query on a borrowed connection and maps every row, errors are logged and give an empty list.
+    // timed in the metrics under operation
+    private <T> List<T> queryList(String operation, String sql, Binder binder, RowMapper<T> mapper) {
+        long start = DatabaseMetrics.start();
+        List<T> list = new ArrayList<>();
+        try (Connection conn = pool.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            binder.bind(ps);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    list.add(mapper.map(rs));
+                }
             }
-            rs.close();
         } catch (SQLException e) {
+            metrics.failure(operation, start, e);
             e.printStackTrace();
+            return list;
         }
+        metrics.success(operation, start, list.size());
         return list;
     }
 }
@@ -0,0 +1,165 @@
+package databasePart1;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// per-operation timing for DatabaseHelper: calls, errors, rows and a latency histogram for
+// every public method, keyed by the method name. a call costs one nanoTime, one map lookup
+// and a few uncontended adds, so it stays on all the time.
+// operators read it through snapshot() or the DatabaseMetricsMXBean registered over jmx.
+// a name with a dot, like searchQuestions.fetch, is one part of another operation and is
+// left out of the totals so nothing is counted twice.
+public class DatabaseMetrics implements DatabaseMetricsMXBean {
+
+    // everything recorded for one operation
+    private static final class Stats {
+        final LongAdder calls = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        final LongAdder rows = new LongAdder();
+        final LongAdder totalNanos = new LongAdder();
+        final LatencyHistogram latency = new LatencyHistogram();
+        volatile String lastError;
+    }
+
+    private final ConcurrentMap<String, Stats> operations = new ConcurrentHashMap<>();
+
+    // start time for a call, pass it back to success or failure
+    public static long start() {
+        return System.nanoTime();
+    }
+
+    // a call that finished normally and returned or changed rows rows
+    public void success(String operation, long startNanos, long rows) {
+        Stats s = record(operation, startNanos);
+        if (rows > 0) s.rows.add(rows);
+    }
+
+    // a call that failed, the exception is kept as the operation's last error
+    public void failure(String operation, long startNanos, Throwable error) {
+        Stats s = record(operation, startNanos);
+        s.errors.increment();
+        s.lastError = String.valueOf(error);
+    }
+
+    private Stats record(String operation, long startNanos) {
+        long elapsed = System.nanoTime() - startNanos;
+        Stats s = operations.get(operation);
+        if (s == null) {
+            s = operations.computeIfAbsent(operation, k -> new Stats());
+        }
+        s.calls.increment();
+        s.totalNanos.add(elapsed);
+        s.latency.record(elapsed);
+        return s;
+    }
+
+    // one operation, null if it has not been called yet
+    public OperationSnapshot snapshot(String operation) {
+        Stats s = operations.get(operation);
+        return s == null ? null : snapshotOf(operation, s);
+    }
+
+    // every operation seen so far, most total time first, so the slow paths are at the top
+    public List<OperationSnapshot> snapshot() {
+        List<OperationSnapshot> list = new ArrayList<>();
+        operations.forEach((name, s) -> list.add(snapshotOf(name, s)));
+        list.sort(Comparator.comparingLong(OperationSnapshot::totalNanos).reversed());
+        return list;
+    }
+
+    private static OperationSnapshot snapshotOf(String name, Stats s) {
+        LatencyHistogram h = s.latency;
+        return new OperationSnapshot(name, s.calls.sum(), s.errors.sum(), s.rows.sum(), s.totalNanos.sum(),
+                h.percentile(0.50), h.percentile(0.90), h.percentile(0.99), h.max(), s.lastError);
+    }
+
+    // every top-level operation in one histogram, copied so it can be compared with a later one
+    public LatencyHistogram totalLatency() {
+        LatencyHistogram all = new LatencyHistogram();
+        operations.forEach((name, s) -> {
+            if (isTopLevel(name)) all.addAll(s.latency);
+        });
+        return all;
+    }
+
+    private static boolean isTopLevel(String operation) {
+        return operation.indexOf('.') < 0;
+    }
+
+    // jmx view, same numbers in milliseconds
+
+    @Override
+    public String[] getOperationNames() {
+        return operations.keySet().stream().sorted().toArray(String[]::new);
+    }
+
+    @Override
+    public String[] getReport() {
+        return snapshot().stream().map(OperationSnapshot::summary).toArray(String[]::new);
+    }
+
+    @Override
+    public long getTotalCalls() {
+        long n = 0;
+        for (Map.Entry<String, Stats> e : operations.entrySet()) {
+            if (isTopLevel(e.getKey())) n += e.getValue().calls.sum();
+        }
+        return n;
+    }
+
+    @Override
+    public long getTotalErrors() {
+        long n = 0;
+        for (Map.Entry<String, Stats> e : operations.entrySet()) {
+            if (isTopLevel(e.getKey())) n += e.getValue().errors.sum();
+        }
+        return n;
+    }
+
+    @Override
+    public long getCalls(String operation) {
+        OperationSnapshot s = snapshot(operation);
+        return s == null ? 0 : s.calls();
+    }
+
+    @Override
+    public long getErrors(String operation) {
+        OperationSnapshot s = snapshot(operation);
+        return s == null ? 0 : s.errors();
+    }
+
+    @Override
+    public long getRows(String operation) {
+        OperationSnapshot s = snapshot(operation);
+        return s == null ? 0 : s.rows();
+    }
+
+    @Override
+    public double getMeanMillis(String operation) {
+        OperationSnapshot s = snapshot(operation);
+        return s == null ? 0 : s.meanNanos() / 1e6;
+    }
+
+    @Override
+    public double getP99Millis(String operation) {
+        OperationSnapshot s = snapshot(operation);
+        return s == null ? 0 : s.p99Nanos() / 1e6;
+    }
+
+    @Override
+    public String getLastError(String operation) {
+        OperationSnapshot s = snapshot(operation);
+        return s == null ? null : s.lastError();
+    }
+
+    // forget everything, e.g. before measuring one page
+    @Override
+    public void reset() {
+        operations.clear();
+    }
+}
@@ -0,0 +1,29 @@
+package databasePart1;
+
+// what jconsole / visualvm show under databasePart1:type=DatabaseMetrics.
+// operation names are the DatabaseHelper method names, e.g. getAllUsers or searchQuestions
+public interface DatabaseMetricsMXBean {
+
+    String[] getOperationNames();
+
+    // one line per operation, most total time first
+    String[] getReport();
+
+    long getTotalCalls();
+
+    long getTotalErrors();
+
+    long getCalls(String operation);
+
+    long getErrors(String operation);
+
+    long getRows(String operation);
+
+    double getMeanMillis(String operation);
+
+    double getP99Millis(String operation);
+
+    String getLastError(String operation);
+
+    void reset();
+}
@@ -0,0 +1,31 @@
+package databasePart1;
+
+import java.security.SecureRandom;
+import java.util.Locale;
+
+// random invite codes: 10 characters from an alphabet without look-alikes (0/O, 1/I),
+// 50 random bits from a single SecureRandom draw per code
+final class InvitationCodes {
+
+    static final int LENGTH = 10;
+    private static final char[] ALPHABET = "23456789ABCDEFGHJKLMNPQRSTUVWXYZ".toCharArray();
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private InvitationCodes() { }
+
+    static String next() {
+        long bits = RANDOM.nextLong();
+        char[] code = new char[LENGTH];
+        for (int i = 0; i < LENGTH; i++) {
+            code[i] = ALPHABET[(int) (bits & 31)];
+            bits >>>= 5;
+        }
+        return new String(code);
+    }
+
+    // codes are stored upper case, so one typed in lower case or with stray spaces still matches
+    static String normalize(String typed) {
+        return typed == null ? null : typed.trim().toUpperCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,99 @@
+package databasePart1;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// latency histogram in the style of HdrHistogram: buckets are linear inside each power of two
+// and double in width from one power of two to the next, so every recorded value is kept to
+// within about 1.6% no matter if it took microseconds or seconds. recording is lock free,
+// so thousands of threads can share one histogram.
+public final class LatencyHistogram {
+
+    // 2^SUB_BITS buckets per power of two
+    private static final int SUB_BITS = 6;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS) * SUB_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder total = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        counts.incrementAndGet(indexOf(nanos));
+        total.increment();
+        sum.add(nanos);
+        max.accumulateAndGet(nanos, Math::max);
+    }
+
+    public void addAll(LatencyHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            long c = other.counts.get(i);
+            if (c != 0) counts.addAndGet(i, c);
+        }
+        total.add(other.total.sum());
+        sum.add(other.sum.sum());
+        max.accumulateAndGet(other.max.get(), Math::max);
+    }
+
+    // what was recorded since earlier was copied, for per-interval percentiles.
+    // the max is only known to bucket precision here
+    public LatencyHistogram since(LatencyHistogram earlier) {
+        LatencyHistogram diff = new LatencyHistogram();
+        for (int i = 0; i < BUCKETS; i++) {
+            long c = counts.get(i) - earlier.counts.get(i);
+            if (c > 0) {
+                diff.counts.set(i, c);
+                diff.total.add(c);
+                diff.max.set(highestValueIn(i));
+            }
+        }
+        diff.sum.add(Math.max(0, sum.sum() - earlier.sum.sum()));
+        return diff;
+    }
+
+    public LatencyHistogram copy() {
+        LatencyHistogram copy = new LatencyHistogram();
+        copy.addAll(this);
+        return copy;
+    }
+
+    public long count() { return total.sum(); }
+
+    public long max() { return max.get(); }
+
+    public double mean() {
+        long n = count();
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    // the value below which the given fraction of recordings fall, e.g. 0.99 for p99
+    public long percentile(double fraction) {
+        long n = count();
+        if (n == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(fraction * n));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) return Math.min(highestValueIn(i), max());
+        }
+        return max();
+    }
+
+    private static int indexOf(long value) {
+        if (value < SUB_COUNT) return (int) value;
+        int msb = 63 - Long.numberOfLeadingZeros(value);
+        int shift = msb - SUB_BITS;
+        int top = (int) (value >>> shift);
+        return (shift + 1) * SUB_COUNT + (top - SUB_COUNT);
+    }
+
+    private static long highestValueIn(int index) {
+        if (index < SUB_COUNT) return index;
+        int shift = index / SUB_COUNT - 1;
+        long top = index % SUB_COUNT + SUB_COUNT;
+        return ((top + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,4 @@
+package databasePart1;
+
+// an account to create in bulk, see DatabaseHelper.registerAll
+public record NewUser(String username, String password, String email, String role) { }
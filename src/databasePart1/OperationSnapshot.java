@@ -0,0 +1,23 @@
+package databasePart1;
+
+// what one DatabaseHelper operation has done since startup (or the last reset), times in nanoseconds.
+// failed calls count towards the latencies too, lastError is null until something fails
+public record OperationSnapshot(String operation, long calls, long errors, long rows,
+                                long totalNanos, long p50Nanos, long p90Nanos, long p99Nanos,
+                                long maxNanos, String lastError) {
+
+    public double meanNanos() {
+        return calls == 0 ? 0 : (double) totalNanos / calls;
+    }
+
+    public double rowsPerCall() {
+        return calls == 0 ? 0 : (double) rows / calls;
+    }
+
+    // one line for logs and the jmx report
+    public String summary() {
+        return String.format("%-24s calls=%d errors=%d rows=%d mean=%.3fms p50=%.3fms p99=%.3fms max=%.3fms total=%.1fms",
+                operation, calls, errors, rows, meanNanos() / 1e6, p50Nanos / 1e6, p99Nanos / 1e6,
+                maxNanos / 1e6, totalNanos / 1e6);
+    }
+}
@@ -0,0 +1,11 @@
+package databasePart1;
+
+import java.util.Set;
+
+// told after a committed write changed how questions list: a question was added, edited or
+// deleted, or one of its answers was posted, deleted or accepted.
+// runs on the thread that wrote, so hand anything slow to another thread
+@FunctionalInterface
+public interface QuestionChangeListener {
+    void questionsChanged(Set<Integer> qids);
+}
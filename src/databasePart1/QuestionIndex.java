@@ -0,0 +1,280 @@
+package databasePart1;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// in-memory inverted index over question titles and bodies.
+// DatabaseHelper keeps it in sync on add/update/delete and uses it to rank search results,
+// so a search never has to scan the QUESTIONS table.
+public class QuestionIndex {
+
+    // bm25 tuning, title hits count more than body hits
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+    private static final float TITLE_BOOST = 2.5f;
+    // a partial last word (user is still typing) expands to at most this many terms
+    private static final int MAX_PREFIX_EXPANSION = 64;
+
+    // postings for one term: parallel arrays of doc slots and per-field term counts
+    private static final class Postings {
+        int[] slots = new int[4];
+        int[] titleTf = new int[4];
+        int[] bodyTf = new int[4];
+        int size;
+
+        void add(int slot, int t, int b) {
+            if (size == slots.length) {
+                int n = size * 2;
+                slots = Arrays.copyOf(slots, n);
+                titleTf = Arrays.copyOf(titleTf, n);
+                bodyTf = Arrays.copyOf(bodyTf, n);
+            }
+            slots[size] = slot;
+            titleTf[size] = t;
+            bodyTf[size] = b;
+            size++;
+        }
+
+        // order does not matter, so swap the last entry into the hole
+        void remove(int slot) {
+            for (int i = 0; i < size; i++) {
+                if (slots[i] == slot) {
+                    size--;
+                    slots[i] = slots[size];
+                    titleTf[i] = titleTf[size];
+                    bodyTf[i] = bodyTf[size];
+                    return;
+                }
+            }
+        }
+    }
+
+    // reusable score buffers so a search does not allocate one float per document
+    private static final class Scratch {
+        float[] scores = new float[0];
+        int[] touched = new int[64];
+
+        float[] scoresFor(int n) {
+            if (scores.length < n) scores = new float[Math.max(n, scores.length * 2)];
+            return scores;
+        }
+    }
+
+    // searches borrow a buffer and put it back, so they are reused across threads too (async
+    // calls run each on a fresh virtual thread, where a ThreadLocal would never be hit).
+    // a search only returns the one it took, so the pool never holds more buffers than the
+    // most searches that ever ran at once
+    private final ConcurrentLinkedQueue<Scratch> scratchPool = new ConcurrentLinkedQueue<>();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // sorted so a prefix can be expanded with a range lookup
+    private final TreeMap<String, Postings> terms = new TreeMap<>();
+    private final Map<Integer, Integer> slotByQid = new HashMap<>();
+
+    // dense per-document tables indexed by slot, freed slots are reused
+    private int[] qidOf = new int[1024];
+    private float[] weightedLength = new float[1024];
+    private String[][] termsOf = new String[1024][];
+    private int[] freeSlots = new int[16];
+    private int freeCount;
+    private int slotCount;
+    private int docCount;
+    private double totalLength;
+
+    // add or replace a question
+    public void put(int qid, String title, String body) {
+        Map<String, int[]> counts = new HashMap<>();
+        int titleLen = countTerms(title, counts, 0);
+        int bodyLen = countTerms(body, counts, 1);
+
+        lock.writeLock().lock();
+        try {
+            removeLocked(qid);
+            int slot = allocateSlot();
+            float len = TITLE_BOOST * titleLen + bodyLen;
+            qidOf[slot] = qid;
+            weightedLength[slot] = len;
+            termsOf[slot] = counts.keySet().toArray(new String[0]);
+            slotByQid.put(qid, slot);
+            docCount++;
+            totalLength += len;
+
+            for (Map.Entry<String, int[]> e : counts.entrySet()) {
+                terms.computeIfAbsent(e.getKey(), k -> new Postings())
+                        .add(slot, e.getValue()[0], e.getValue()[1]);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int qid) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(qid);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            terms.clear();
+            slotByQid.clear();
+            Arrays.fill(termsOf, null);
+            freeCount = 0;
+            slotCount = 0;
+            docCount = 0;
+            totalLength = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // the k best matching question ids, best first
+    public int[] search(String query, int k) {
+        List<String> queryTerms = tokenize(query);
+        if (queryTerms.isEmpty() || k <= 0) return new int[0];
+        boolean lastIsPrefix = !query.isEmpty() && Character.isLetterOrDigit(query.charAt(query.length() - 1));
+
+        lock.readLock().lock();
+        try {
+            if (docCount == 0) return new int[0];
+            float avgLength = (float) (totalLength / docCount);
+            Scratch scratch = scratchPool.poll();
+            if (scratch == null) scratch = new Scratch();
+            float[] scores = scratch.scoresFor(slotCount);
+            int[] touched = scratch.touched;
+            int touchedCount = 0;
+
+            for (int i = 0; i < queryTerms.size(); i++) {
+                String term = queryTerms.get(i);
+                List<Postings> matches = new ArrayList<>();
+                if (i == queryTerms.size() - 1 && lastIsPrefix) {
+                    for (Postings p : terms.subMap(term, true, term + Character.MAX_VALUE, false).values()) {
+                        matches.add(p);
+                        if (matches.size() == MAX_PREFIX_EXPANSION) break;
+                    }
+                } else {
+                    Postings p = terms.get(term);
+                    if (p != null) matches.add(p);
+                }
+
+                for (Postings p : matches) {
+                    float idf = (float) Math.log(1 + (docCount - p.size + 0.5) / (p.size + 0.5));
+                    for (int j = 0; j < p.size; j++) {
+                        int slot = p.slots[j];
+                        float tf = TITLE_BOOST * p.titleTf[j] + p.bodyTf[j];
+                        float norm = K1 * (1 - B + B * weightedLength[slot] / avgLength);
+                        if (scores[slot] == 0) {
+                            if (touchedCount == touched.length) touched = Arrays.copyOf(touched, touchedCount * 2);
+                            touched[touchedCount++] = slot;
+                        }
+                        scores[slot] += idf * tf * (K1 + 1) / (tf + norm);
+                    }
+                }
+            }
+
+            // bounded min-heap keeps only the k best while walking the candidates
+            final float[] s = scores;
+            PriorityQueue<Integer> heap = new PriorityQueue<>(k + 1,
+                    (a, b) -> s[a] != s[b] ? Float.compare(s[a], s[b]) : Integer.compare(qidOf[a], qidOf[b]));
+            for (int i = 0; i < touchedCount; i++) {
+                int slot = touched[i];
+                if (heap.size() < k) {
+                    heap.offer(slot);
+                } else if (s[slot] > s[heap.peek()]) {
+                    heap.poll();
+                    heap.offer(slot);
+                }
+            }
+
+            // leave the reusable buffer zeroed for the next search
+            for (int i = 0; i < touchedCount; i++) {
+                scores[touched[i]] = 0;
+            }
+            scratch.touched = touched;
+            scratchPool.offer(scratch);
+
+            int[] result = new int[heap.size()];
+            for (int i = result.length - 1; i >= 0; i--) {
+                result[i] = qidOf[heap.poll()];
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void removeLocked(int qid) {
+        Integer slot = slotByQid.remove(qid);
+        if (slot == null) return;
+        for (String term : termsOf[slot]) {
+            Postings p = terms.get(term);
+            if (p == null) continue;
+            p.remove(slot);
+            if (p.size == 0) terms.remove(term);
+        }
+        termsOf[slot] = null;
+        docCount--;
+        totalLength -= weightedLength[slot];
+        if (freeCount == freeSlots.length) freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        freeSlots[freeCount++] = slot;
+    }
+
+    private int allocateSlot() {
+        if (freeCount > 0) return freeSlots[--freeCount];
+        if (slotCount == qidOf.length) {
+            int n = slotCount * 2;
+            qidOf = Arrays.copyOf(qidOf, n);
+            weightedLength = Arrays.copyOf(weightedLength, n);
+            termsOf = Arrays.copyOf(termsOf, n);
+        }
+        return slotCount++;
+    }
+
+    // counts terms of one field into counts[term][field], returns the number of terms
+    private static int countTerms(String text, Map<String, int[]> counts, int field) {
+        int n = 0;
+        for (String term : tokenize(text)) {
+            counts.computeIfAbsent(term, k -> new int[2])[field]++;
+            n++;
+        }
+        return n;
+    }
+
+    // lowercase runs of letters and digits, everything else separates words
+    static List<String> tokenize(String text) {
+        List<String> out = new ArrayList<>();
+        if (text == null) return out;
+        int len = text.length();
+        int start = -1;
+        for (int i = 0; i <= len; i++) {
+            boolean word = i < len && Character.isLetterOrDigit(text.charAt(i));
+            if (word && start < 0) {
+                start = i;
+            } else if (!word && start >= 0) {
+                out.add(text.substring(start, i).toLowerCase());
+                start = -1;
+            }
+        }
+        return out;
+    }
+}
@@ -0,0 +1,23 @@
+package databasePart1;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+
+// one row of QUESTIONS, read straight from the result set without going through strings
+public record QuestionRow(int qid, String username, String title, String body, Instant createdAt) {
+
+    // column list every question query selects, in the order map() reads them
+    static final String COLUMNS = "QID, USERNAME, TITLE, BODY, CREATED_AT";
+
+    static QuestionRow map(ResultSet rs) throws SQLException {
+        Timestamp created = rs.getTimestamp(5);
+        return new QuestionRow(
+                rs.getInt(1),
+                rs.getString(2),
+                rs.getString(3),
+                rs.getString(4),
+                created == null ? null : created.toInstant());
+    }
+}
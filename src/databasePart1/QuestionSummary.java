@@ -0,0 +1,27 @@
+package databasePart1;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+
+// what the question lists show: everything but the body, plus reply statistics.
+// the body is read separately with DatabaseHelper.getQuestionBody when a question is opened
+public record QuestionSummary(int qid, String username, String title, Instant createdAt,
+                              int answerCount, boolean solved) {
+
+    // column list every summary query selects from QUESTIONS Q, in the order map() reads them.
+    // the reply statistics are kept on the question row by the answer writes, see DatabaseHelper
+    static final String COLUMNS = "Q.QID, Q.USERNAME, Q.TITLE, Q.CREATED_AT, Q.ANSWER_COUNT, Q.SOLVED";
+
+    static QuestionSummary map(ResultSet rs) throws SQLException {
+        Timestamp created = rs.getTimestamp(4);
+        return new QuestionSummary(
+                rs.getInt(1),
+                rs.getString(2),
+                rs.getString(3),
+                created == null ? null : created.toInstant(),
+                rs.getInt(5),
+                rs.getBoolean(6));
+    }
+}
@@ -0,0 +1,71 @@
+package databasePart1;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+// the roles the app knows about, each one a bit so a user's roles fit in one int.
+// ROLES.ROLE_BITS stores the bits of each row, Privileges keeps the combined mask.
+// the bit values are persisted, so never renumber them, only add new ones.
+public enum Role {
+    ADMIN(1, "admin", "administrator"),
+    STAFF(2, "staff"),
+    INSTRUCTOR(4, "instructor", "teacher"),
+    STUDENT(8, "student"),
+    REVIEWER(16, "reviewer");
+
+    // roles that may moderate other people's posts
+    public static final int PRIVILEGED = ADMIN.bit | STAFF.bit | INSTRUCTOR.bit;
+
+    private final int bit;
+    private final String[] names;
+
+    Role(int bit, String... names) {
+        this.bit = bit;
+        this.names = names;
+    }
+
+    public int bit() {
+        return bit;
+    }
+
+    // bits for one stored role string. matching is case-insensitive and a name anywhere in
+    // the string counts, the same rules Privileges used when it compared the strings itself
+    public static int maskOf(String role) {
+        if (role == null) return 0;
+        String normalized = role.trim().toLowerCase();
+        int mask = 0;
+        for (Role r : values()) {
+            for (String name : r.names) {
+                if (normalized.contains(name)) {
+                    mask |= r.bit;
+                    break;
+                }
+            }
+        }
+        return mask;
+    }
+
+    public static int maskOf(Collection<String> roles) {
+        if (roles == null) return 0;
+        int mask = 0;
+        for (String role : roles) {
+            mask |= maskOf(role);
+        }
+        return mask;
+    }
+
+    // every ROLE_BITS value that includes one of these bits. a row may hold several roles, so
+    // matching a role means listing the masks: ROLE_BITS = ANY(?) over them stays on the index
+    static Integer[] masksWith(int bits) {
+        int all = 0;
+        for (Role r : values()) {
+            all |= r.bit;
+        }
+        List<Integer> masks = new ArrayList<>();
+        for (int m = 1; m <= all; m++) {
+            if ((m & bits) != 0 && (m & ~all) == 0) masks.add(m);
+        }
+        return masks.toArray(new Integer[0]);
+    }
+}
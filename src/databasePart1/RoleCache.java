@@ -0,0 +1,114 @@
+package databasePart1;
+
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// read-through cache of each user's roles, so permission checks don't go to h2 every time.
+// every write to ROLES or USERS in DatabaseHelper invalidates the username it touched.
+// hits are a plain ConcurrentHashMap read with no lock, every page checks roles so this is hot.
+// eviction is approximate (second chance, like a clock): a hit marks its entry, and once the
+// cache is over size one thread sweeps it, unmarking marked entries and dropping unmarked ones
+class RoleCache {
+
+    interface Loader {
+        UserRoles load(String username) throws SQLException;
+    }
+
+    private static final class Entry {
+        final UserRoles roles;
+        // set by a hit, cleared by the sweep. an entry not hit since the last sweep goes next
+        volatile boolean referenced;
+
+        Entry(UserRoles roles) {
+            this.roles = roles;
+        }
+    }
+
+    private final int maxSize;
+    private final ConcurrentHashMap<String, Entry> roles = new ConcurrentHashMap<>();
+    // bumped on every invalidation, a load that overlapped one is not cached
+    private final AtomicLong generation = new AtomicLong();
+    // only one thread sweeps at a time, the others carry on and leave the map briefly over size
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    RoleCache(int maxSize) {
+        if (maxSize < 1) throw new IllegalArgumentException("maxSize must be positive");
+        this.maxSize = maxSize;
+    }
+
+    // the loader returns a read-only list of names
+    UserRoles get(String username, Loader loader) throws SQLException {
+        Entry cached = roles.get(username);
+        if (cached != null) {
+            // read first so a hot entry is not written on every hit
+            if (!cached.referenced) cached.referenced = true;
+            hits.increment();
+            return cached.roles;
+        }
+        long seen = generation.get();
+        misses.increment();
+
+        UserRoles loaded = loader.load(username);
+        // invalidate bumps the generation inside compute on the same key, so the check and the put
+        // here are atomic against it: a write that committed while we were reading either stops
+        // the put or removes the entry right after it
+        roles.compute(username, (k, old) -> {
+            if (old != null) return old;
+            return generation.get() == seen ? new Entry(loaded) : null;
+        });
+        if (roles.size() > maxSize) evict(username);
+        return loaded;
+    }
+
+    // the entry just added is skipped, it has not had a chance to be hit yet
+    private void evict(String keep) {
+        if (!evicting.compareAndSet(false, true)) return;
+        try {
+            Iterator<Map.Entry<String, Entry>> it = roles.entrySet().iterator();
+            while (roles.size() > maxSize) {
+                if (!it.hasNext()) {
+                    it = roles.entrySet().iterator();
+                    if (!it.hasNext()) break;
+                }
+                Map.Entry<String, Entry> e = it.next();
+                if (e.getKey().equals(keep)) continue;
+                Entry entry = e.getValue();
+                if (entry.referenced) {
+                    entry.referenced = false;
+                } else {
+                    roles.remove(e.getKey(), entry);
+                }
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    void invalidate(String username) {
+        roles.compute(username, (k, old) -> {
+            generation.incrementAndGet();
+            return null;
+        });
+    }
+
+    void clear() {
+        generation.incrementAndGet();
+        roles.clear();
+    }
+
+    int size() {
+        return roles.size();
+    }
+
+    long getHits() { return hits.sum(); }
+
+    long getMisses() { return misses.sum(); }
+}
@@ -0,0 +1,10 @@
+package databasePart1;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+// turns the current row of a result set into a typed object
+@FunctionalInterface
+public interface RowMapper<T> {
+    T map(ResultSet rs) throws SQLException;
+}
@@ -0,0 +1,198 @@
+package databasePart1;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+// versioned schema changes on top of the tables initializeTables() creates.
+// every applied version is recorded in SCHEMA_HISTORY; at startup the pending ones run in order,
+// each inside its own transaction. h2 commits on most DDL, so every step is also written to be
+// safe to run again (IF NOT EXISTS etc.) in case a half-applied step is retried.
+// to change the schema, add a new Migration at the end of the list, never edit an applied one.
+// each applied migration is recorded in DatabaseMetrics as migrate.v<version>, with the rows it
+// changed, and a failed one as that operation's last error, so it shows on the metrics page
+class SchemaMigrations {
+
+    // work a plain sql list cannot do, e.g. setting rows aside first. returns the rows it changed
+    private interface Step {
+        int run(Connection conn) throws SQLException;
+    }
+
+    private static final class Migration {
+        final int version;
+        final String description;
+        // runs before the statements, may be null
+        final Step prepare;
+        final String[] statements;
+
+        Migration(int version, String description, String... statements) {
+            this(version, description, null, statements);
+        }
+
+        Migration(int version, String description, Step prepare, String... statements) {
+            this.version = version;
+            this.description = description;
+            this.prepare = prepare;
+            this.statements = statements;
+        }
+    }
+
+    private static final List<Migration> MIGRATIONS = List.of(
+            new Migration(1, "secondary indexes for the hot lookups",
+                    "CREATE INDEX IF NOT EXISTS IDX_ANSWERS_QID ON ANSWERS (QID, AID)",
+                    "CREATE INDEX IF NOT EXISTS IDX_ROLES_USERNAME ON ROLES (USERNAME)",
+                    "CREATE INDEX IF NOT EXISTS IDX_QUESTIONS_USERNAME ON QUESTIONS (USERNAME, QID)",
+                    "CREATE INDEX IF NOT EXISTS IDX_QUESTIONS_CREATED_AT ON QUESTIONS (CREATED_AT)"),
+
+            // rows left behind by older deletes would block the constraints, see setAsideOrphans
+            new Migration(2, "foreign keys with cascading deletes",
+                    SchemaMigrations::setAsideOrphans,
+                    "ALTER TABLE ANSWERS ADD CONSTRAINT IF NOT EXISTS FK_ANSWERS_QUESTION " +
+                            "FOREIGN KEY (QID) REFERENCES QUESTIONS (QID) ON DELETE CASCADE",
+                    "ALTER TABLE ROLES ADD CONSTRAINT IF NOT EXISTS FK_ROLES_USER " +
+                            "FOREIGN KEY (USERNAME) REFERENCES USERS (USERNAME) ON DELETE CASCADE"),
+
+            new Migration(3, "role bitmask column",
+                    "ALTER TABLE ROLES ADD COLUMN IF NOT EXISTS ROLE_BITS INT DEFAULT 0 NOT NULL",
+                    // same matching as Role.maskOf, written out here so this step never changes
+                    "UPDATE ROLES SET ROLE_BITS = " +
+                            "CASE WHEN LOWER(ROLE) LIKE '%admin%' THEN 1 ELSE 0 END + " +
+                            "CASE WHEN LOWER(ROLE) LIKE '%staff%' THEN 2 ELSE 0 END + " +
+                            "CASE WHEN LOWER(ROLE) LIKE '%instructor%' OR LOWER(ROLE) LIKE '%teacher%' THEN 4 ELSE 0 END + " +
+                            "CASE WHEN LOWER(ROLE) LIKE '%student%' THEN 8 ELSE 0 END + " +
+                            "CASE WHEN LOWER(ROLE) LIKE '%reviewer%' THEN 16 ELSE 0 END",
+                    "CREATE INDEX IF NOT EXISTS IDX_ROLES_BITS ON ROLES (ROLE_BITS, USERNAME)"),
+            // h2 does not walk the primary key backwards, without this every newest-first page
+            // scanned and sorted the whole table
+            new Migration(4, "descending QID index for newest-first paging",
+                    "CREATE INDEX IF NOT EXISTS IDX_QUESTIONS_QID_DESC ON QUESTIONS (QID DESC)"),
+            // reply statistics kept on the question row, so lists never count ANSWERS per question.
+            // older builds could accept several answers of one question, the newest one wins here
+            // and migration 7 clears the flag on the others
+            new Migration(5, "answer counter and solved flag on questions",
+                    "ALTER TABLE QUESTIONS ADD COLUMN IF NOT EXISTS ANSWER_COUNT INT DEFAULT 0 NOT NULL",
+                    "ALTER TABLE QUESTIONS ADD COLUMN IF NOT EXISTS ACCEPTED_AID INT",
+                    "ALTER TABLE QUESTIONS ADD COLUMN IF NOT EXISTS SOLVED BOOLEAN DEFAULT FALSE NOT NULL",
+                    "UPDATE QUESTIONS Q SET " +
+                            "ANSWER_COUNT = (SELECT COUNT(*) FROM ANSWERS A WHERE A.QID = Q.QID), " +
+                            "ACCEPTED_AID = (SELECT MAX(AID) FROM ANSWERS A WHERE A.QID = Q.QID AND A.IS_ACCEPTED)",
+                    "UPDATE QUESTIONS SET SOLVED = ACCEPTED_AID IS NOT NULL"),
+            // the staff triage queue, see TriageOrder. h2 has no partial indexes, so SOLVED leads
+            // and every queue reads only the unsolved end of one of these
+            new Migration(6, "triage indexes for unanswered and unsolved questions",
+                    "CREATE INDEX IF NOT EXISTS IDX_QUESTIONS_TRIAGE_AGE ON QUESTIONS (SOLVED, QID)",
+                    "CREATE INDEX IF NOT EXISTS IDX_QUESTIONS_TRIAGE_PRIORITY ON QUESTIONS (SOLVED, ANSWER_COUNT, QID)"),
+            // this changes data, not just the schema: an answer that older builds had accepted
+            // alongside a newer one loses its accepted flag. see demoteExtraAcceptedAnswers
+            new Migration(7, "one accepted answer per question",
+                    SchemaMigrations::demoteExtraAcceptedAnswers),
+            // nothing reads questions by CREATED_AT, newest-first paging goes by QID
+            new Migration(8, "drop the unused CREATED_AT index",
+                    "DROP INDEX IF EXISTS IDX_QUESTIONS_CREATED_AT"),
+            // redeeming upper-cases the typed code (InvitationCodes.normalize), but older builds
+            // stored lower-case hex codes as generated. a code whose upper-case form is already
+            // taken is left alone rather than breaking the primary key
+            new Migration(9, "upper-case invitation codes from older builds",
+                    "UPDATE INVITATIONS SET CODE = UPPER(CODE) WHERE CODE <> UPPER(CODE) " +
+                            "AND UPPER(CODE) NOT IN (SELECT CODE FROM INVITATIONS)")
+    );
+
+    private SchemaMigrations() { }
+
+    // applies every migration newer than the recorded version, returns the version the schema is now at
+    static int migrate(Connection conn, DatabaseMetrics metrics) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS SCHEMA_HISTORY (" +
+                    "VERSION INT PRIMARY KEY," +
+                    "DESCRIPTION VARCHAR(255)," +
+                    "APPLIED_AT TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+        }
+
+        int current = currentVersion(conn);
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        Migration running = null;
+        long start = 0;
+        try {
+            for (Migration m : MIGRATIONS) {
+                if (m.version <= current) continue;
+                running = m;
+                start = DatabaseMetrics.start();
+                int rows = 0;
+                if (m.prepare != null) {
+                    rows += m.prepare.run(conn);
+                }
+                try (Statement stmt = conn.createStatement()) {
+                    for (String sql : m.statements) {
+                        if (!stmt.execute(sql)) rows += Math.max(0, stmt.getUpdateCount());
+                    }
+                }
+                try (PreparedStatement ps = conn.prepareStatement(
+                        "INSERT INTO SCHEMA_HISTORY (VERSION, DESCRIPTION) VALUES (?, ?)")) {
+                    ps.setInt(1, m.version);
+                    ps.setString(2, m.description);
+                    ps.executeUpdate();
+                }
+                conn.commit();
+                current = m.version;
+                metrics.success(operation(m), start, rows);
+                running = null;
+            }
+        } catch (SQLException e) {
+            conn.rollback();
+            if (running != null) metrics.failure(operation(running), start, e);
+            throw e;
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+        return current;
+    }
+
+    // a dot keeps migrations out of the per-call totals, see DatabaseMetrics
+    private static String operation(Migration m) {
+        return "migrate.v" + m.version;
+    }
+
+    // answers of deleted questions and roles of deleted users are moved into ORPHANED_ANSWERS and
+    // ORPHANED_ROLES instead of being dropped, so an admin can see what the foreign keys would
+    // have rejected and restore it by hand. the rows moved are the migration's row count
+    private static int setAsideOrphans(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            return setAside(stmt, "ANSWERS", "QID IS NULL OR QID NOT IN (SELECT QID FROM QUESTIONS)")
+                    + setAside(stmt, "ROLES", "USERNAME IS NULL OR USERNAME NOT IN (SELECT USERNAME FROM USERS)");
+        }
+    }
+
+    private static int setAside(Statement stmt, String table, String orphaned) throws SQLException {
+        stmt.execute("CREATE TABLE IF NOT EXISTS ORPHANED_" + table + " AS SELECT * FROM " + table + " WITH NO DATA");
+        int moved = stmt.executeUpdate("INSERT INTO ORPHANED_" + table + " SELECT * FROM " + table + " WHERE " + orphaned);
+        stmt.executeUpdate("DELETE FROM " + table + " WHERE " + orphaned);
+        return moved;
+    }
+
+    // older builds let a question have several accepted answers. QUESTIONS.ACCEPTED_AID (the
+    // newest of them, see migration 5) stays accepted and the others lose the flag, which is
+    // what markAnswerAccepted does on every accept since. the answers themselves are kept, and
+    // the ones demoted are listed in DEMOTED_ACCEPTED_ANSWERS so an admin can review them.
+    // the number demoted is the migration's row count
+    private static int demoteExtraAcceptedAnswers(Connection conn) throws SQLException {
+        String extra = "IS_ACCEPTED AND AID <> (SELECT Q.ACCEPTED_AID FROM QUESTIONS Q WHERE Q.QID = A.QID)";
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS DEMOTED_ACCEPTED_ANSWERS (AID INT PRIMARY KEY, QID INT)");
+            // MERGE so a retried half-applied run does not trip over the rows it listed before
+            stmt.executeUpdate("MERGE INTO DEMOTED_ACCEPTED_ANSWERS (AID, QID) KEY (AID) " +
+                    "SELECT AID, QID FROM ANSWERS A WHERE " + extra);
+            return stmt.executeUpdate("UPDATE ANSWERS A SET IS_ACCEPTED = FALSE WHERE " + extra);
+        }
+    }
+
+    static int currentVersion(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(VERSION), 0) FROM SCHEMA_HISTORY")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package databasePart1;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// records every pooled prepared statement that runs longer than the threshold: the sql, its
+// bound parameters (values bound to a PASSWORD column are redacted), the elapsed time and the
+// h2 plan (the indexes chosen, not row counts). entries go to a rotating log file next to the
+// database and into a small ring buffer that the admin page reads.
+public final class SlowQueryLog {
+
+    // statements slower than this are recorded, -Dcse360.slowQueryMillis=... overrides it
+    public static final long DEFAULT_THRESHOLD_MS = Long.getLong("cse360.slowQueryMillis", 100);
+    // most recent entries kept in memory
+    private static final int RING_SIZE = 200;
+    // the log is rotated at this size, keeping file.1 .. file.KEEP_FILES
+    private static final long MAX_FILE_BYTES = 1_000_000;
+    private static final int KEEP_FILES = 3;
+    // the plan of one sql text is captured at most this often, it seldom changes in between
+    private static final long PLAN_INTERVAL_MS = 60_000;
+    // longest parameter value written out
+    private static final int MAX_VALUE_CHARS = 100;
+
+    static final String REDACTED = "'***'";
+
+    // one slow statement, newest entries come first from recent()
+    public record SlowQuery(LocalDateTime at, String sql, List<String> parameters, long elapsedNanos, String plan) {
+
+        public double elapsedMillis() {
+            return elapsedNanos / 1e6;
+        }
+
+        // the text written to the log file
+        public String format() {
+            return String.format("%s %.1f ms%n  sql: %s%n  params: %s%n  plan:%n    %s%n",
+                    at, elapsedMillis(), sql, parameters, plan.replace("\n", "\n    "));
+        }
+    }
+
+    private final Path file;
+    private volatile long thresholdNanos;
+
+    private final SlowQuery[] ring = new SlowQuery[RING_SIZE];
+    private int next;
+    private long recorded;
+
+    // when each sql text last had its plan captured
+    private final Map<String, Long> lastPlanned = new ConcurrentHashMap<>();
+
+    // file may be null to keep entries in memory only
+    public SlowQueryLog(Path file, long thresholdMs) {
+        this.file = file;
+        setThresholdMillis(thresholdMs);
+    }
+
+    public long getThresholdMillis() {
+        return thresholdNanos / 1_000_000;
+    }
+
+    // 0 records every statement, handy while chasing one page
+    public void setThresholdMillis(long ms) {
+        thresholdNanos = Math.max(0, ms) * 1_000_000;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    boolean isSlow(long elapsedNanos) {
+        return elapsedNanos >= thresholdNanos;
+    }
+
+    // called by the statement cache after a statement ran past the threshold, on the same connection.
+    // params[i] is parameter i + 1, batch means the parameters are only the last row of the batch
+    void record(Connection physical, String sql, Object[] params, int paramCount, long elapsedNanos, boolean batch) {
+        boolean[] sensitive = sensitiveParameters(sql);
+        List<String> shown = new ArrayList<>(paramCount);
+        List<String> hidden = new ArrayList<>();
+        for (int i = 0; i < paramCount; i++) {
+            Object value = params[i];
+            if (i < sensitive.length && sensitive[i]) {
+                shown.add(REDACTED);
+                if (value != null) hidden.add(String.valueOf(value));
+            } else {
+                shown.add(formatValue(value));
+            }
+        }
+
+        String plan = batch ? "(batch, no plan)" : explain(physical, sql, params, paramCount);
+        // h2 sometimes inlines values into the plan, so take the redacted ones out of it too
+        for (String secret : hidden) {
+            plan = plan.replace("'" + secret.replace("'", "''") + "'", REDACTED);
+        }
+
+        SlowQuery entry = new SlowQuery(LocalDateTime.now(), sql, List.copyOf(shown), elapsedNanos, plan);
+        synchronized (ring) {
+            ring[next] = entry;
+            next = (next + 1) % RING_SIZE;
+            recorded++;
+        }
+        write(entry);
+    }
+
+    // newest first
+    public List<SlowQuery> recent() {
+        List<SlowQuery> list = new ArrayList<>(RING_SIZE);
+        synchronized (ring) {
+            for (int i = 1; i <= RING_SIZE; i++) {
+                SlowQuery q = ring[(next - i + RING_SIZE) % RING_SIZE];
+                if (q == null) break;
+                list.add(q);
+            }
+        }
+        return list;
+    }
+
+    // how many statements were recorded in total, including those that left the ring
+    public long getRecordedCount() {
+        synchronized (ring) {
+            return recorded;
+        }
+    }
+
+    public void clear() {
+        synchronized (ring) {
+            Arrays.fill(ring, null);
+            next = 0;
+        }
+    }
+
+    // plain EXPLAIN only plans the statement. this runs on the caller's thread and connection
+    // right after its slow query, so EXPLAIN ANALYZE, which runs the query a second time,
+    // would make every slow request twice as slow
+    private String explain(Connection physical, String sql, Object[] params, int paramCount) {
+        long now = System.currentTimeMillis();
+        Long last = lastPlanned.get(sql);
+        if (last != null && now - last < PLAN_INTERVAL_MS) {
+            return "(plan captured less than a minute ago)";
+        }
+        lastPlanned.put(sql, now);
+
+        try (PreparedStatement ps = physical.prepareStatement("EXPLAIN " + sql)) {
+            for (int i = 0; i < paramCount; i++) {
+                ps.setObject(i + 1, params[i]);
+            }
+            StringBuilder plan = new StringBuilder();
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    if (plan.length() > 0) plan.append('\n');
+                    plan.append(rs.getString(1));
+                }
+            }
+            return plan.toString();
+        } catch (SQLException e) {
+            return "(no plan: " + e.getMessage() + ")";
+        }
+    }
+
+    // appends under the lock, rotating first when the file is full
+    private void write(SlowQuery entry) {
+        if (file == null) return;
+        synchronized (this) {
+            try {
+                if (Files.exists(file) && Files.size(file) > MAX_FILE_BYTES) {
+                    rotate();
+                }
+                Files.writeString(file, entry.format(), StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            } catch (IOException e) {
+                System.err.println("Could not write slow query log " + file + ": " + e.getMessage());
+            }
+        }
+    }
+
+    // file -> file.1 -> file.2 ..., the oldest one falls off the end
+    private void rotate() throws IOException {
+        for (int i = KEEP_FILES - 1; i >= 1; i--) {
+            Path from = rotated(i);
+            if (Files.exists(from)) {
+                Files.move(from, rotated(i + 1), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        Files.move(file, rotated(1), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private Path rotated(int n) {
+        return file.resolveSibling(file.getFileName() + "." + n);
+    }
+
+    private static String formatValue(Object value) {
+        String text;
+        if (value == null) {
+            text = "NULL";
+        } else if (value instanceof Object[] array) {
+            text = Arrays.toString(array);
+        } else if (value instanceof CharSequence) {
+            text = "'" + value + "'";
+        } else {
+            text = String.valueOf(value);
+        }
+        return text.length() > MAX_VALUE_CHARS ? text.substring(0, MAX_VALUE_CHARS) + "..." : text;
+    }
+
+    // which ? placeholders are bound to a PASSWORD column, either as "PASSWORD = ?" or by
+    // position in "INSERT INTO T (.., PASSWORD, ..) VALUES (?, ?, ..)"
+    static boolean[] sensitiveParameters(String sql) {
+        String upper = sql.toUpperCase(Locale.ROOT);
+        List<Boolean> flags = new ArrayList<>();
+
+        List<String> insertColumns = null;
+        int valuesAt = -1;
+        if (upper.stripLeading().startsWith("INSERT")) {
+            int open = upper.indexOf('(');
+            int close = open < 0 ? -1 : upper.indexOf(')', open);
+            valuesAt = upper.indexOf("VALUES");
+            if (open >= 0 && close > open && valuesAt > close) {
+                insertColumns = new ArrayList<>();
+                for (String column : upper.substring(open + 1, close).split(",")) {
+                    insertColumns.add(column.trim());
+                }
+            }
+        }
+
+        int valuesIndex = 0;
+        for (int i = 0; i < upper.length(); i++) {
+            if (upper.charAt(i) != '?') continue;
+            if (insertColumns != null && i > valuesAt) {
+                flags.add(valuesIndex < insertColumns.size() && insertColumns.get(valuesIndex).contains("PASSWORD"));
+                valuesIndex++;
+            } else {
+                flags.add(columnBefore(upper, i).contains("PASSWORD"));
+            }
+        }
+
+        boolean[] result = new boolean[flags.size()];
+        for (int i = 0; i < result.length; i++) result[i] = flags.get(i);
+        return result;
+    }
+
+    // the identifier in front of "= ?", empty if the ? is not part of a comparison
+    private static String columnBefore(String upper, int questionMark) {
+        int i = questionMark - 1;
+        while (i >= 0 && Character.isWhitespace(upper.charAt(i))) i--;
+        if (i < 0 || "=<>".indexOf(upper.charAt(i)) < 0) return "";
+        while (i >= 0 && "=<>!".indexOf(upper.charAt(i)) >= 0) i--;
+        while (i >= 0 && Character.isWhitespace(upper.charAt(i))) i--;
+        int end = i + 1;
+        while (i >= 0 && (Character.isLetterOrDigit(upper.charAt(i)) || upper.charAt(i) == '_'
+                || upper.charAt(i) == '.' || upper.charAt(i) == '"')) i--;
+        return upper.substring(i + 1, end);
+    }
+}
@@ -0,0 +1,228 @@
+package databasePart1;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+// prepared statements of one pooled connection, keyed by sql text and kept in lru order.
+// closing a statement handed out from here only puts it back, so hot queries are parsed
+// and planned once per connection instead of on every call. the pool closes the cache
+// together with its physical connection.
+// when a SlowQueryLog is set, every execute is timed and the slow ones are recorded with
+// the parameters that were bound for them.
+// executes made inside an AsyncDatabaseHelper call are registered with its CancelScope, so a
+// timed out call can cancel the statement instead of interrupting the thread.
+class StatementCache {
+
+    private final Connection physical;
+    private final int maxSize;
+    private final LongAdder hits;
+    private final LongAdder misses;
+    private final SlowQueryLog slowLog;
+
+    // access ordered, so the first entry is always the least recently used
+    private final LinkedHashMap<String, Cached> statements = new LinkedHashMap<>(16, 0.75f, true);
+
+    private static final class Cached {
+        final String sql;
+        final PreparedStatement statement;
+        boolean inUse;
+
+        Cached(String sql, PreparedStatement statement) {
+            this.sql = sql;
+            this.statement = statement;
+        }
+    }
+
+    // slowLog may be null, then nothing is timed
+    StatementCache(Connection physical, int maxSize, LongAdder hits, LongAdder misses, SlowQueryLog slowLog) {
+        this.physical = physical;
+        this.maxSize = maxSize;
+        this.hits = hits;
+        this.misses = misses;
+        this.slowLog = slowLog;
+    }
+
+    // autoGeneratedKeys is Statement.NO_GENERATED_KEYS or RETURN_GENERATED_KEYS
+    PreparedStatement prepare(Connection owner, String sql, int autoGeneratedKeys) throws SQLException {
+        String key = autoGeneratedKeys == Statement.RETURN_GENERATED_KEYS ? "K:" + sql : sql;
+        Cached cached = statements.get(key);
+        if (cached != null && cached.inUse) {
+            // same sql already open on this connection (nested use). the extra statement is not
+            // cached, closing it closes it for real, but it still goes through a Lease so it is
+            // timed for the slow query log and registered with the CancelScope like any other
+            misses.increment();
+            Cached extra = new Cached(sql, physical.prepareStatement(sql, autoGeneratedKeys));
+            extra.inUse = true;
+            return wrap(owner, key, extra);
+        }
+        if (cached != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+            cached = new Cached(sql, physical.prepareStatement(sql, autoGeneratedKeys));
+            statements.put(key, cached);
+            evictOverflow();
+        }
+        cached.inUse = true;
+        return wrap(owner, key, cached);
+    }
+
+    private void evictOverflow() {
+        Iterator<Map.Entry<String, Cached>> it = statements.entrySet().iterator();
+        while (statements.size() > maxSize && it.hasNext()) {
+            Cached eldest = it.next().getValue();
+            if (eldest.inUse) continue;
+            it.remove();
+            closeQuietly(eldest.statement);
+        }
+    }
+
+    void closeAll() {
+        for (Cached c : statements.values()) {
+            closeQuietly(c.statement);
+        }
+        statements.clear();
+    }
+
+    int size() {
+        return statements.size();
+    }
+
+    private static void closeQuietly(Statement s) {
+        try {
+            s.close();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private PreparedStatement wrap(Connection owner, String key, Cached cached) {
+        return (PreparedStatement) Proxy.newProxyInstance(
+                PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class},
+                new Lease(owner, key, cached));
+    }
+
+    // one checkout of a cached statement
+    private final class Lease implements InvocationHandler {
+        private final Connection owner;
+        private final String key;
+        private final Cached cached;
+        private boolean returned;
+
+        // parameters bound so far, only tracked for the slow query log
+        private Object[] params = new Object[8];
+        private int paramCount;
+
+        Lease(Connection owner, String key, Cached cached) {
+            this.owner = owner;
+            this.key = key;
+            this.cached = cached;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!returned) {
+                        returned = true;
+                        giveBack();
+                    }
+                    return null;
+                case "isClosed":
+                    return returned || cached.statement.isClosed();
+                case "getConnection":
+                    return owner;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Cached[" + cached.statement + "]";
+                default:
+                    break;
+            }
+            if (returned) {
+                throw new SQLException("Statement has already been closed");
+            }
+
+            String name = method.getName();
+            if (name.startsWith("execute")) {
+                CancelScope scope = CancelScope.current();
+                if (scope == null) return execute(method, args);
+                scope.started(cached.statement);
+                try {
+                    return execute(method, args);
+                } finally {
+                    scope.finished(cached.statement);
+                }
+            }
+            if (slowLog != null) {
+                if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                    remember(index, name.equals("setNull") ? null : args[1]);
+                } else if (name.equals("clearParameters")) {
+                    paramCount = 0;
+                }
+            }
+            return forward(method, args);
+        }
+
+        private Object execute(Method method, Object[] args) throws Throwable {
+            if (slowLog == null) {
+                return forward(method, args);
+            }
+            long start = System.nanoTime();
+            Object result = forward(method, args);
+            long elapsed = System.nanoTime() - start;
+            if (slowLog.isSlow(elapsed)) {
+                slowLog.record(physical, cached.sql, params, paramCount, elapsed, method.getName().equals("executeBatch"));
+            }
+            return result;
+        }
+
+        private Object forward(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(cached.statement, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        // jdbc parameters start at 1
+        private void remember(int index, Object value) {
+            if (index < 1) return;
+            if (index > params.length) {
+                params = Arrays.copyOf(params, Math.max(index, params.length * 2));
+            }
+            params[index - 1] = value;
+            paramCount = Math.max(paramCount, index);
+        }
+
+        // reset for the next caller, a statement that cannot be reset is dropped
+        private void giveBack() {
+            cached.inUse = false;
+            try {
+                cached.statement.clearParameters();
+                cached.statement.clearBatch();
+                if (statements.get(key) != cached) {
+                    // evicted while checked out, or a nested extra that was never cached
+                    cached.statement.close();
+                }
+            } catch (SQLException e) {
+                statements.remove(key, cached);
+                closeQuietly(cached.statement);
+            }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package databasePart1;
+
+import java.util.Comparator;
+
+// the staff triage queue: questions nobody has solved yet, in one of three orders.
+// every order is one range of a triage index (migration 6), so a page costs O(log n + page size)
+// however many questions there are. QID is auto-increment, so QID order is age order
+public enum TriageOrder {
+
+    UNANSWERED("Unanswered, oldest first", "Q.SOLVED = FALSE AND Q.ANSWER_COUNT = 0",
+            "Q.SOLVED, Q.ANSWER_COUNT, Q.QID", Comparator.comparingInt(QuestionSummary::qid)),
+
+    OLDEST("Unsolved, oldest first", "Q.SOLVED = FALSE",
+            "Q.SOLVED, Q.QID", Comparator.comparingInt(QuestionSummary::qid)),
+
+    // the fewer replies, the more a question needs someone to look at it
+    PRIORITY("Unsolved, fewest replies first", "Q.SOLVED = FALSE",
+            "Q.SOLVED, Q.ANSWER_COUNT, Q.QID",
+            Comparator.comparingInt(QuestionSummary::answerCount).thenComparingInt(QuestionSummary::qid));
+
+    private final String label;
+    final String where;
+    // starts with the columns fixed by where, h2 only reads an index in order when ORDER BY matches it from the front
+    final String orderBy;
+    private final Comparator<QuestionSummary> comparator;
+
+    TriageOrder(String label, String where, String orderBy, Comparator<QuestionSummary> comparator) {
+        this.label = label;
+        this.where = where;
+        this.orderBy = orderBy;
+        this.comparator = comparator;
+    }
+
+    // whether a question belongs in this queue, the same test as where
+    public boolean includes(QuestionSummary s) {
+        return !s.solved() && (this != UNANSWERED || s.answerCount() == 0);
+    }
+
+    // the order the queue is read in
+    public Comparator<QuestionSummary> comparator() {
+        return comparator;
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+}
@@ -0,0 +1,10 @@
+package databasePart1;
+
+import java.util.List;
+
+// one user's rows of ROLES as the role cache keeps them: the stored strings for display,
+// and the ROLE_BITS of every row or'ed together for permission checks
+record UserRoles(List<String> names, int mask) {
+
+    static final UserRoles NONE = new UserRoles(List.of(), 0);
+}
@@ -0,0 +1,27 @@
+package databasePart1;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+// one entry of the admin user directory: a user with their roles joined into one string
+public record UserRow(String username, String name, String email, String roles) {
+
+    // expects USERNAME, EMAIL, ROLES as the first three columns
+    static UserRow map(ResultSet rs) throws SQLException {
+        String uname = rs.getString(1);
+        String email = rs.getString(2);
+        String roles = rs.getString(3);
+        if (roles == null || roles.isEmpty()) {
+            roles = "(none)";
+        }
+
+        String name;
+        if (email != null && email.contains("@")) {
+            name = email.substring(0, email.indexOf("@"));
+        } else {
+            name = "(not set)";
+        }
+
+        return new UserRow(uname, name, email == null ? "" : email, roles);
+    }
+}
@@ -0,0 +1,279 @@
+package databasePart1;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// group commit for new questions and answers.
+// posters queue their insert and get a future for the generated id; one writer thread
+// drains the queue every few milliseconds (or as soon as a batch is full) and writes
+// everything it collected as jdbc batches inside a single transaction.
+class WriteBatcher implements AutoCloseable {
+
+    static final String INSERT_QUESTION_SQL = "INSERT INTO QUESTIONS (USERNAME, TITLE, BODY) VALUES (?, ?, ?)";
+    static final String INSERT_ANSWER_SQL = "INSERT INTO ANSWERS (QID, USERNAME, BODY) VALUES (?, ?, ?)";
+    static final String COUNT_ANSWERS_SQL = "UPDATE QUESTIONS SET ANSWER_COUNT = ANSWER_COUNT + ? WHERE QID = ?";
+
+    // told about each question once its transaction has committed, then once about the whole batch
+    interface CommitListener {
+        void questionCommitted(int qid, String title, String body);
+
+        // every question that was added or got an answer in the batch
+        void batchCommitted(Set<Integer> qids);
+    }
+
+    private static final class PendingQuestion {
+        final String username, title, body;
+        final CompletableFuture<Integer> done = new CompletableFuture<>();
+
+        PendingQuestion(String username, String title, String body) {
+            this.username = username;
+            this.title = title;
+            this.body = body;
+        }
+    }
+
+    private static final class PendingAnswer {
+        final int qid;
+        final String username, body;
+        final CompletableFuture<Integer> done = new CompletableFuture<>();
+
+        PendingAnswer(int qid, String username, String body) {
+            this.qid = qid;
+            this.username = username;
+            this.body = body;
+        }
+    }
+
+    private final ConnectionPool pool;
+    private final CommitListener listener;
+    private final int maxBatch;
+    private final long maxDelayNanos;
+    private final BlockingQueue<Object> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    // posters hold the read side from the closed check until their item is queued, close()
+    // flips the flag under the write side, so nothing can be queued once close() has seen it
+    private final ReadWriteLock closing = new ReentrantReadWriteLock();
+    private volatile boolean closed;
+
+    WriteBatcher(ConnectionPool pool, CommitListener listener, int maxBatch, long maxDelayMs) {
+        this.pool = pool;
+        this.listener = listener;
+        this.maxBatch = maxBatch;
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMs);
+        this.writer = new Thread(this::writeLoop, "db-group-commit");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    CompletableFuture<Integer> submitQuestion(String username, String title, String body) {
+        PendingQuestion p = new PendingQuestion(username, title, body);
+        enqueue(p, p.done);
+        return p.done;
+    }
+
+    CompletableFuture<Integer> submitAnswer(int qid, String username, String body) {
+        PendingAnswer p = new PendingAnswer(qid, username, body);
+        enqueue(p, p.done);
+        return p.done;
+    }
+
+    private void enqueue(Object item, CompletableFuture<Integer> done) {
+        // the writer finishes the queue before it exits, anything after close() fails right away
+        closing.readLock().lock();
+        try {
+            if (closed) {
+                done.completeExceptionally(new SQLException("Write batcher is closed"));
+                return;
+            }
+            queue.add(item);
+        } finally {
+            closing.readLock().unlock();
+        }
+    }
+
+    private void writeLoop() {
+        List<Object> batch = new ArrayList<>(maxBatch);
+        while (!closed || !queue.isEmpty()) {
+            try {
+                Object first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+
+                // keep collecting until the batch is full or the window closes
+                long deadline = System.nanoTime() + maxDelayNanos;
+                while (batch.size() < maxBatch) {
+                    long wait = deadline - System.nanoTime();
+                    Object next = wait > 0 ? queue.poll(wait, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) break;
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                // only close() stops the loop, and it does that through the flag
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<Object> batch) {
+        List<PendingQuestion> questions = new ArrayList<>();
+        List<PendingAnswer> answers = new ArrayList<>();
+        for (Object o : batch) {
+            if (o instanceof PendingQuestion q) questions.add(q);
+            else answers.add((PendingAnswer) o);
+        }
+
+        try {
+            writeTogether(questions, answers);
+        } catch (SQLException e) {
+            // one bad row should not fail its neighbours, so retry each item on its own
+            for (PendingQuestion q : questions) writeAlone(List.of(q), List.of());
+            for (PendingAnswer a : answers) writeAlone(List.of(), List.of(a));
+        } catch (RuntimeException e) {
+            // keep the writer thread alive, nobody waiting on this batch is left hanging
+            e.printStackTrace();
+            for (PendingQuestion q : questions) q.done.completeExceptionally(e);
+            for (PendingAnswer a : answers) a.done.completeExceptionally(e);
+        }
+    }
+
+    private void writeAlone(List<PendingQuestion> questions, List<PendingAnswer> answers) {
+        try {
+            writeTogether(questions, answers);
+        } catch (SQLException e) {
+            for (PendingQuestion q : questions) q.done.completeExceptionally(e);
+            for (PendingAnswer a : answers) a.done.completeExceptionally(e);
+        }
+    }
+
+    // questions first so answers in the same batch can already refer to them
+    private void writeTogether(List<PendingQuestion> questions, List<PendingAnswer> answers) throws SQLException {
+        int[] qids = new int[questions.size()];
+        int[] aids = new int[answers.size()];
+
+        try (Connection conn = pool.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                if (!questions.isEmpty()) {
+                    try (PreparedStatement ps = conn.prepareStatement(INSERT_QUESTION_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                        for (PendingQuestion q : questions) {
+                            ps.setString(1, q.username);
+                            ps.setString(2, q.title);
+                            ps.setString(3, q.body);
+                            ps.addBatch();
+                        }
+                        ps.executeBatch();
+                        readKeys(ps, qids);
+                    }
+                }
+                if (!answers.isEmpty()) {
+                    try (PreparedStatement ps = conn.prepareStatement(INSERT_ANSWER_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                        for (PendingAnswer a : answers) {
+                            ps.setInt(1, a.qid);
+                            ps.setString(2, a.username);
+                            ps.setString(3, a.body);
+                            ps.addBatch();
+                        }
+                        ps.executeBatch();
+                        readKeys(ps, aids);
+                    }
+                    // bump each question's counter once, in qid order so two writers lock rows the same way
+                    Map<Integer, Integer> perQuestion = new TreeMap<>();
+                    for (PendingAnswer a : answers) perQuestion.merge(a.qid, 1, Integer::sum);
+                    try (PreparedStatement ps = conn.prepareStatement(COUNT_ANSWERS_SQL)) {
+                        for (Map.Entry<Integer, Integer> e : perQuestion.entrySet()) {
+                            ps.setInt(1, e.getValue());
+                            ps.setInt(2, e.getKey());
+                            ps.addBatch();
+                        }
+                        ps.executeBatch();
+                    }
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+
+        // the rows are durable now. a listener that throws is only logged: failing the futures
+        // would make posters retry rows that are already saved.
+        // questionCommitted runs first so a poster can find its question by search right away,
+        // it only touches the in-memory index and never waits for the index build
+        for (int i = 0; i < questions.size(); i++) {
+            PendingQuestion q = questions.get(i);
+            try {
+                listener.questionCommitted(qids[i], q.title, q.body);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+        for (int i = 0; i < questions.size(); i++) {
+            questions.get(i).done.complete(qids[i]);
+        }
+        for (int i = 0; i < answers.size(); i++) {
+            answers.get(i).done.complete(aids[i]);
+        }
+
+        Set<Integer> changed = new HashSet<>();
+        for (int qid : qids) changed.add(qid);
+        for (PendingAnswer a : answers) changed.add(a.qid);
+        try {
+            listener.batchCommitted(changed);
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static void readKeys(PreparedStatement ps, int[] into) throws SQLException {
+        try (ResultSet keys = ps.getGeneratedKeys()) {
+            int i = 0;
+            while (keys.next() && i < into.length) {
+                into[i++] = keys.getInt(1);
+            }
+            if (i != into.length) {
+                throw new SQLException("Expected " + into.length + " generated keys, got " + i);
+            }
+        }
+    }
+
+    // stops taking new work, whatever is already queued is still written
+    @Override
+    public void close() {
+        closing.writeLock().lock();
+        try {
+            closed = true;
+        } finally {
+            closing.writeLock().unlock();
+        }
+        try {
+            writer.join(5_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // only left over when the writer did not finish in time, those will never be written
+        Object left;
+        while ((left = queue.poll()) != null) {
+            SQLException e = new SQLException("Write batcher is closed");
+            if (left instanceof PendingQuestion q) q.done.completeExceptionally(e);
+            else ((PendingAnswer) left).done.completeExceptionally(e);
+        }
+    }
+}